@@ -0,0 +1,117 @@
+package com.example.MiniProject1.benchmark;
+
+import com.example.MiniProject1.MiniProject1Application;
+import com.example.model.Product;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * The application (without the web server) over a freshly generated data set of
+ * {@code size} products, started once per benchmark method. Benchmarks take their ids from
+ * the {@code next...} methods, which cycle through a fixed sample of existing rows so that
+ * picking one allocates nothing.
+ * <p>
+ * {@code storageMode} and {@code fsyncPolicy} are passed through to the repositories and
+ * can be varied like the size, e.g. {@code -p storageMode=json,log -p fsyncPolicy=os}.
+ */
+@State(Scope.Benchmark)
+public abstract class ApplicationState {
+
+    private static final long SEED = 42L;
+    private static final int SAMPLE = 1024;
+
+    @Param({"100", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"json"})
+    public String storageMode;
+
+    @Param({"always"})
+    public String fsyncPolicy;
+
+    protected DataGenerator data;
+    protected ConfigurableApplicationContext context;
+
+    private Path dataDir;
+    private final UUID[] productIds = new UUID[SAMPLE];
+    private final Product[] products = new Product[SAMPLE];
+    private final UUID[] userIds = new UUID[SAMPLE];
+    private final UUID[] cartIds = new UUID[SAMPLE];
+    private int next;
+
+    @Setup
+    public void startApplication() throws IOException {
+        // DevTools would restart the application in its own class loader.
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        dataDir = Files.createTempDirectory("jmh-data");
+        data = new DataGenerator(size, SEED);
+        data.writeTo(dataDir);
+
+        Random random = new Random(SEED);
+        for (int i = 0; i < SAMPLE; i++) {
+            int product = random.nextInt(data.productCount());
+            productIds[i] = data.productId(product);
+            products[i] = data.product(product);
+            userIds[i] = data.userId(random.nextInt(data.userCount()));
+            cartIds[i] = data.cartId(random.nextInt(data.cartCount()));
+        }
+
+        // Passed as command-line arguments so they win over application.properties.
+        context = new SpringApplicationBuilder(MiniProject1Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--logging.level.root=WARN",
+                        "--spring.application.storageMode=" + storageMode,
+                        "--spring.application.fsyncPolicy=" + fsyncPolicy,
+                        "--spring.application.productDataPath=" + dataDir.resolve("products.json"),
+                        "--spring.application.userDataPath=" + dataDir.resolve("users.json"),
+                        "--spring.application.cartDataPath=" + dataDir.resolve("carts.json"),
+                        "--spring.application.orderDataPath=" + dataDir.resolve("orders.json"),
+                        "--spring.application.journalPath=" + dataDir.resolve("journal.json"));
+        loaded();
+    }
+
+    /**
+     * Called once the application is up; reads whatever the benchmarks touch so that the
+     * first measured call does not pay for parsing the files.
+     */
+    protected abstract void loaded();
+
+    @TearDown
+    public void stopApplication() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(dataDir);
+    }
+
+    protected UUID nextProductId() {
+        return productIds[advance()];
+    }
+
+    protected Product nextProduct() {
+        return products[advance()];
+    }
+
+    protected UUID nextUserId() {
+        return userIds[advance()];
+    }
+
+    protected UUID nextCartId() {
+        return cartIds[advance()];
+    }
+
+    private int advance() {
+        return next = (next + 1) & (SAMPLE - 1);
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.MiniProject1.benchmark;
+
+import com.example.model.Cart;
+import com.example.model.Order;
+import com.example.model.Product;
+import com.example.model.User;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Writes a realistic, reproducible data set: products.json, users.json, carts.json and
+ * orders.json. For a size of N there are N products, N/4 users, a cart for every other
+ * user and about two orders per user (also embedded in the user, as the services write them).
+ * Carts and orders favour popular products, prices are spread like a real catalogue, and
+ * the files are streamed out, so 1M products need no more memory than 100.
+ * <p>
+ * Every row is derived from the seed and its index, so the benchmarks can name existing ids
+ * without reading the files back. Standalone:
+ * <pre>
+ *   java -cp ... com.example.MiniProject1.benchmark.DataGenerator &lt;dir&gt; &lt;size&gt; [seed]
+ * </pre>
+ */
+public final class DataGenerator {
+
+    private static final String[] ADJECTIVES = {
+            "Wireless", "Compact", "Organic", "Stainless", "Ergonomic", "Vintage", "Smart", "Portable",
+            "Waterproof", "Handmade", "Classic", "Premium", "Foldable", "Rechargeable", "Ceramic", "Leather"};
+    private static final String[] NOUNS = {
+            "Headphones", "Backpack", "Coffee Grinder", "Desk Lamp", "Water Bottle", "Keyboard", "Notebook",
+            "Running Shoes", "Blender", "Sunglasses", "Phone Case", "Yoga Mat", "Speaker", "Wallet",
+            "Monitor Stand", "Chef Knife"};
+    private static final String[] FIRST_NAMES = {
+            "Amira", "Omar", "Lina", "Youssef", "Sara", "Karim", "Nour", "Hassan", "Mariam", "Ali",
+            "Farida", "Mostafa", "Salma", "Tarek", "Hana", "Ziad"};
+    private static final String[] LAST_NAMES = {
+            "Hassan", "Mahmoud", "Ibrahim", "Mostafa", "Adel", "Samir", "Fathy", "Nabil", "Kamal", "Saleh",
+            "Younes", "Rashad", "Gamal", "Fouad", "Zaki", "Shawky"};
+
+    private static final long PRODUCT = 1, USER = 2, CART = 3, ORDER = 4;
+
+    private final long seed;
+    private final int products;
+    private final int users;
+
+    public DataGenerator(int size, long seed) {
+        this.seed = seed;
+        this.products = Math.max(1, size);
+        this.users = Math.max(1, size / 4);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Path.of(args[0]);
+        int size = Integer.parseInt(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+        Files.createDirectories(dir);
+        new DataGenerator(size, seed).writeTo(dir);
+    }
+
+    public int productCount() {
+        return products;
+    }
+
+    public int userCount() {
+        return users;
+    }
+
+    public int cartCount() {
+        return (users + 1) / 2;
+    }
+
+    public UUID productId(int i) {
+        return uuid(random(PRODUCT, i));
+    }
+
+    public UUID userId(int i) {
+        return uuid(random(USER, i));
+    }
+
+    public UUID cartId(int i) {
+        return uuid(random(CART, i));
+    }
+
+    public Product product(int i) {
+        Random random = random(PRODUCT, i);
+        UUID id = uuid(random);
+        String name = pick(random, ADJECTIVES) + " " + pick(random, NOUNS) + " " + (char) ('A' + random.nextInt(26))
+                + (100 + random.nextInt(900));
+        // Log-normal prices: most items are cheap, a few cost a lot.
+        double price = Math.min(5000.0, Math.exp(3.2 + 1.1 * random.nextGaussian()));
+        return new Product(id, name, Math.round(price * 100) / 100.0);
+    }
+
+    public void writeTo(Path dir) throws IOException {
+        // Rows are buffered; flushing after each one would cost a write call per row.
+        ObjectMapper objectMapper = new ObjectMapper().disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        writeArray(objectMapper, dir.resolve("products.json"), products, this::product);
+        writeArray(objectMapper, dir.resolve("carts.json"), cartCount(), this::cart);
+        List<Order> orders = new ArrayList<>();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(dir.resolve("orders.json")), 1 << 16);
+             JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.writeStartArray();
+            for (int i = 0; i < users; i++) {
+                orders.clear();
+                ordersOf(i, orders);
+                for (Order order : orders) {
+                    objectMapper.writeValue(json, order);
+                }
+            }
+            json.writeEndArray();
+        }
+        writeArray(objectMapper, dir.resolve("users.json"), users, this::user);
+    }
+
+    private User user(int i) {
+        Random random = random(USER, i);
+        UUID id = uuid(random);
+        List<Order> orders = new ArrayList<>();
+        ordersOf(i, orders);
+        return new User(id, pick(random, FIRST_NAMES) + " " + pick(random, LAST_NAMES), orders);
+    }
+
+    // Cart j belongs to user 2j.
+    private Cart cart(int j) {
+        Random random = random(CART, j);
+        UUID id = uuid(random);
+        return new Cart(id, userId(2 * j), lines(random, 1 + random.nextInt(6)));
+    }
+
+    // Same seed for orders.json and users.json, so both hold the same orders.
+    private void ordersOf(int user, List<Order> into) {
+        Random random = random(ORDER, user);
+        UUID userId = userId(user);
+        int count = random.nextInt(5);
+        for (int k = 0; k < count; k++) {
+            UUID id = uuid(random);
+            List<Product> lines = lines(random, 1 + random.nextInt(4));
+            double total = 0.0;
+            for (Product line : lines) {
+                total += line.getPrice();
+            }
+            into.add(new Order(id, userId, Math.round(total * 100) / 100.0, lines));
+        }
+    }
+
+    private List<Product> lines(Random random, int count) {
+        List<Product> lines = new ArrayList<>(count);
+        for (int k = 0; k < count; k++) {
+            // Squaring the draw skews it towards the first (popular) products.
+            double u = random.nextDouble();
+            lines.add(product((int) (u * u * products)));
+        }
+        return lines;
+    }
+
+    private interface Row {
+        Object at(int i);
+    }
+
+    private static void writeArray(ObjectMapper objectMapper, Path file, int count, Row row) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+             JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.writeStartArray();
+            for (int i = 0; i < count; i++) {
+                objectMapper.writeValue(json, row.at(i));
+            }
+            json.writeEndArray();
+        }
+    }
+
+    private Random random(long kind, int i) {
+        return new Random(seed * 0x9E3779B97F4A7C15L + kind * 0x100000000L + i);
+    }
+
+    private static UUID uuid(Random random) {
+        // Version 4 / IETF variant bits, like UUID.randomUUID().
+        long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
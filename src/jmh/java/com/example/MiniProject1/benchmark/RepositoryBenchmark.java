@@ -0,0 +1,87 @@
+package com.example.MiniProject1.benchmark;
+
+import com.example.model.Product;
+import com.example.repository.CartRepository;
+import com.example.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository operations against data files of every size. {@code MainRepository} is
+ * measured through the product catalogue, the largest file. Writes go through the configured
+ * storage mode and fsync policy, exactly as a request would, so they include the disk.
+ * <p>
+ * The writes leave their effects in place: {@code save} grows the catalogue by one row per
+ * call and {@code applyDiscount} keeps lowering the same prices, which is negligible next to
+ * the data set except for the smallest sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark extends ApplicationState {
+
+    private static final int DISCOUNTED = 10;
+
+    private ProductRepository productRepository;
+    private CartRepository cartRepository;
+    private ArrayList<Product> catalogue;
+    private ArrayList<UUID> discounted;
+    private long saved;
+
+    @Override
+    protected void loaded() {
+        productRepository = context.getBean(ProductRepository.class);
+        cartRepository = context.getBean(CartRepository.class);
+        catalogue = productRepository.findAll();
+        cartRepository.getCartById(nextCartId());
+        discounted = new ArrayList<>(DISCOUNTED);
+        for (int i = 0; i < DISCOUNTED; i++) {
+            discounted.add(nextProductId());
+        }
+    }
+
+    @Benchmark
+    public List<Product> findAll() {
+        return productRepository.findAll();
+    }
+
+    @Benchmark
+    public void save() {
+        productRepository.save(new Product(new UUID(0L, saved++), "Benchmark Product", 19.99));
+    }
+
+    @Benchmark
+    public void saveAll() {
+        productRepository.saveAll(catalogue);
+    }
+
+    @Benchmark
+    public Product getProductById() {
+        return productRepository.getProductById(nextProductId());
+    }
+
+    @Benchmark
+    public void applyDiscount() {
+        productRepository.applyDiscount(0.5, discounted);
+    }
+
+    @Benchmark
+    public void addProductToCart() {
+        cartRepository.addProductToCart(nextCartId(), nextProduct());
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.MiniProject1.benchmark;
+
+import com.example.repository.CartRepository;
+import com.example.repository.OrderRepository;
+import com.example.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout ({@code UserService.addOrderToUser}): pricing the cart, then the transaction
+ * that writes the order, the user and the cart. Half of the generated users start with a
+ * cart; once a user has checked out, later checkouts of the same user write an empty order,
+ * so the measurement mixes both cases the way production traffic does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark extends ApplicationState {
+
+    private UserService userService;
+
+    @Override
+    protected void loaded() {
+        userService = context.getBean(UserService.class);
+        userService.getUserById(nextUserId());
+        context.getBean(CartRepository.class).getCartById(nextCartId());
+        context.getBean(OrderRepository.class).getOrderById(nextUserId());
+    }
+
+    @Benchmark
+    public void addOrderToUser() {
+        userService.addOrderToUser(nextUserId());
+    }
+}
@@ -2,8 +2,11 @@ package com.example.controller;
 
 import com.example.model.Cart;
 import com.example.model.Product;
+import com.example.repository.Page;
 import com.example.service.CartService;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.*;
 
@@ -11,9 +14,11 @@ import java.util.*;
 @RequestMapping("/cart")
 public class CartController {
     private final CartService cartService;
+    private final ResponseCache responseCache;
 
-    public CartController(CartService cartService) {
+    public CartController(CartService cartService, ResponseCache responseCache) {
         this.cartService = cartService;
+        this.responseCache = responseCache;
     }
 
     @PostMapping("/")
@@ -21,14 +26,23 @@ public class CartController {
         return cartService.addCart(cart);
     }
 
+    // With limit or after: one page {items, next} in file order.
     @GetMapping("/")
-    public ArrayList<Cart> getCarts() {
+    public Object getCarts(@RequestParam(required = false) Integer limit, @RequestParam(required = false) String after) {
+        if (Page.requested(limit, after, null)) {
+            return cartService.getCartsPage(after, Page.limit(limit));
+        }
         return cartService.getCarts();
     }
 
+    // ETag from the cart's own version: 304 for a current If-None-Match, without reading the cart.
     @GetMapping("/{cartId}")
-    public Cart getCartById(@PathVariable UUID cartId) {
-        return cartService.getCartById(cartId);
+    public ResponseEntity<Cart> getCartById(@PathVariable UUID cartId, WebRequest request) {
+        String etag = responseCache.etag(cartService.getCartVersion(cartId));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(cartService.getCartById(cartId));
     }
 
     @GetMapping("/user/{userId}")
@@ -0,0 +1,53 @@
+package com.example.controller;
+
+import com.example.metrics.Metrics;
+import com.example.repository.MainRepository;
+import com.example.repository.RepositoryMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/metrics")
+public class MetricsController {
+
+    private final Metrics metrics;
+    private final List<MainRepository<?>> repositories;
+
+    @Autowired
+    public MetricsController(Metrics metrics, List<MainRepository<?>> repositories) {
+        this.metrics = metrics;
+        this.repositories = repositories;
+    }
+
+    // 1) All Metrics: GET /metrics
+    //    endpoints: latency per controller method (us: count, mean, p50, p99, p999, max)
+    //    repositories: per entity, latency per operation (us), rows scanned per lookup field,
+    //                  bytes read/written per data file
+    //    caches: hits, misses and hit ratio per cache
+    @GetMapping
+    public Map<String, Object> getMetrics() {
+        Map<String, RepositoryMetrics.Snapshot> perRepository = new LinkedHashMap<>();
+        for (MainRepository<?> repository : repositories) {
+            perRepository.put(repository.getEntityName(), repository.getMetrics().snapshot());
+        }
+        Map<String, Object> all = new LinkedHashMap<>();
+        all.put("endpoints", metrics.getEndpoints());
+        all.put("repositories", perRepository);
+        all.put("caches", metrics.getCaches());
+        return all;
+    }
+
+    // 2) Reset: DELETE /metrics (e.g. between load-test runs)
+    @DeleteMapping
+    public String resetMetrics() {
+        metrics.reset();
+        for (MainRepository<?> repository : repositories) {
+            repository.getMetrics().reset();
+        }
+        return "Metrics reset";
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Response for the /export endpoints: the body is written by a repository straight to the
+ * response stream on an MVC async thread, one JSON object per line.
+ */
+final class NdjsonExport {
+
+    private NdjsonExport() {
+    }
+
+    static ResponseEntity<StreamingResponseBody> of(String format, String name, StreamingResponseBody body) {
+        if (!"ndjson".equalsIgnoreCase(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only format=ndjson is supported");
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + ".ndjson\"")
+                .body(body);
+    }
+}
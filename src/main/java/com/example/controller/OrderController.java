@@ -1,11 +1,13 @@
 package com.example.controller;
 
 import com.example.model.Order;
+import com.example.repository.Page;
 import com.example.service.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.ArrayList;
 import java.util.UUID;
 
 @RestController
@@ -32,11 +34,24 @@ public class OrderController {
     }
 
     // 3) Get All Orders Endpoint: GET /order/
+    //    with limit, after or sort (totalPrice, -totalPrice): one page {items, next}
     @GetMapping("/")
-    public ArrayList<Order> getOrders() {
+    public Object getOrders(@RequestParam(required = false) Integer limit,
+                            @RequestParam(required = false) String after,
+                            @RequestParam(required = false) String sort) {
+        if (Page.requested(limit, after, sort)) {
+            return orderService.getOrdersPage(sort, after, Page.limit(limit));
+        }
         return orderService.getOrders();
     }
 
+    // 3b) Export Orders Endpoint: GET /order/export?format=ndjson
+    //     one order per line, streamed from the repository (nothing is collected in memory)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam(defaultValue = "ndjson") String format) {
+        return NdjsonExport.of(format, "orders", orderService::exportOrders);
+    }
+
     // 4) Delete a Specific Order Endpoint: DELETE /order/delete/{orderId}
     @DeleteMapping("/delete/{orderId}")
     public String deleteOrderById(@PathVariable UUID orderId) {
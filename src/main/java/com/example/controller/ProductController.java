@@ -1,11 +1,19 @@
 package com.example.controller;
 
+import com.example.model.PriceChange;
 import com.example.model.Product;
+import com.example.repository.ImportResult;
+import com.example.repository.Page;
+import com.example.repository.PricingResult;
 import com.example.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.UUID;
@@ -14,11 +22,13 @@ import java.util.UUID;
 @RequestMapping("/product")
 public class ProductController {
     ProductService productService;
+    private final ResponseCache responseCache;
     private ArrayList<Product> products = new ArrayList<>();
 
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ResponseCache responseCache) {
         this.productService = productService;
+        this.responseCache = responseCache;
     }
 
     @PostMapping("/")
@@ -27,9 +37,29 @@ public class ProductController {
         return productService.addProduct(product);
     }
 
+    // Served from the response cache until the products change; 304 for a current If-None-Match.
+    // With limit, after or sort (price, name, -price, -name): one page {items, next}.
     @GetMapping("/")
-    public ArrayList<Product> getProducts() {
-        return productService.getProducts();
+    public ResponseEntity<?> getProducts(@RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) String after,
+                                         @RequestParam(required = false) String sort,
+                                         WebRequest request) {
+        if (Page.requested(limit, after, sort)) {
+            return ResponseEntity.ok(ProductService.getProductsPage(sort, after, Page.limit(limit)));
+        }
+        return responseCache.respond("products", ProductService.getProductsVersion(), ProductService::getProducts, request);
+    }
+
+    // Bulk add from an NDJSON body (one product per line), committed once: POST /product/import
+    @PostMapping("/import")
+    public ImportResult importProducts(InputStream body) throws IOException {
+        return ProductService.importProducts(body);
+    }
+
+    // Every product as NDJSON, streamed from the repository: GET /product/export?format=ndjson
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "ndjson") String format) {
+        return NdjsonExport.of(format, "products", ProductService::exportProducts);
     }
 
     @GetMapping("/{productId}")
@@ -53,6 +83,13 @@ public class ProductController {
 
     }
 
+    // Bulk price change by ids, price range and/or name prefix: PUT /product/reprice
+    // {"minPrice": 10, "maxPrice": 50, "namePrefix": "Winter", "discount": 15} -> {affected, millis}
+    @PutMapping("/reprice")
+    public PricingResult reprice(@RequestBody PriceChange change) {
+        return ProductService.reprice(change);
+    }
+
     @DeleteMapping("/delete/{productId}")
     public String deleteProductById(@PathVariable UUID productId) {
         productService.deleteProductById(productId);
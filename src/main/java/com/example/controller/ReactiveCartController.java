@@ -0,0 +1,70 @@
+package com.example.controller;
+
+import com.example.model.Cart;
+import com.example.model.Product;
+import com.example.repository.ReactiveRepositories;
+import com.example.service.CartService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Non-blocking variant of {@link CartController}.
+ */
+@RestController
+@RequestMapping("/reactive/cart")
+public class ReactiveCartController {
+
+    private final CartService cartService;
+    private final ReactiveRepositories reactive;
+
+    @Autowired
+    public ReactiveCartController(CartService cartService, ReactiveRepositories reactive) {
+        this.cartService = cartService;
+        this.reactive = reactive;
+    }
+
+    @PostMapping("/")
+    public Mono<Cart> addCart(@RequestBody Cart cart) {
+        return reactive.call(() -> cartService.addCart(cart));
+    }
+
+    @GetMapping("/")
+    public Flux<Cart> getCarts() {
+        return reactive.carts().findAll();
+    }
+
+    @GetMapping("/{cartId}")
+    public Mono<Cart> getCartById(@PathVariable UUID cartId) {
+        return reactive.call(() -> cartService.getCartById(cartId));
+    }
+
+    @GetMapping("/user/{userId}")
+    public Mono<Cart> getCartByUserId(@PathVariable UUID userId) {
+        return reactive.call(() -> cartService.getCartByUserId(userId));
+    }
+
+    @PutMapping("/addProduct/{cartId}")
+    public Mono<String> addProductToCart(@PathVariable UUID cartId, @RequestBody Product product) {
+        return reactive.call(() -> {
+            cartService.addProductToCart(cartId, product);
+            return "Product added to cart";
+        });
+    }
+
+    @PutMapping("/deleteProduct/{cartId}")
+    public Mono<String> deleteProductFromCart(@PathVariable UUID cartId, @RequestParam UUID productId) {
+        return reactive.call(() -> cartService.deleteProductFromCart(cartId, productId));
+    }
+
+    @DeleteMapping("/delete/{cartId}")
+    public Mono<String> deleteCartById(@PathVariable UUID cartId) {
+        return reactive.call(() -> {
+            cartService.deleteCartById(cartId);
+            return "Cart deleted successfully";
+        });
+    }
+}
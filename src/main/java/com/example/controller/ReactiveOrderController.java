@@ -0,0 +1,59 @@
+package com.example.controller;
+
+import com.example.model.Order;
+import com.example.repository.ReactiveRepositories;
+import com.example.service.OrderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Non-blocking variant of {@link OrderController}. {@code GET /reactive/order/} streams the
+ * orders one per line with {@code Accept: application/x-ndjson} instead of building a list.
+ */
+@RestController
+@RequestMapping("/reactive/order")
+public class ReactiveOrderController {
+
+    private final OrderService orderService;
+    private final ReactiveRepositories reactive;
+
+    @Autowired
+    public ReactiveOrderController(OrderService orderService, ReactiveRepositories reactive) {
+        this.orderService = orderService;
+        this.reactive = reactive;
+    }
+
+    @PostMapping("/")
+    public Mono<Void> addOrder(@RequestBody Order order) {
+        return reactive.call(() -> {
+            orderService.addOrder(order);
+            return null;
+        }).then();
+    }
+
+    @GetMapping("/{orderId}")
+    public Mono<Order> getOrderById(@PathVariable UUID orderId) {
+        return reactive.call(() -> orderService.getOrderById(orderId));
+    }
+
+    @GetMapping("/")
+    public Flux<Order> getOrders() {
+        return reactive.orders().findAll();
+    }
+
+    @DeleteMapping("/delete/{orderId}")
+    public Mono<String> deleteOrderById(@PathVariable UUID orderId) {
+        return reactive.call(() -> {
+            try {
+                orderService.deleteOrderById(orderId);
+                return "Order deleted successfully";
+            } catch (IllegalArgumentException e) {
+                return "Order not found";
+            }
+        });
+    }
+}
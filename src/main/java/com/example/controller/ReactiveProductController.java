@@ -0,0 +1,69 @@
+package com.example.controller;
+
+import com.example.model.Product;
+import com.example.repository.ReactiveRepositories;
+import com.example.service.ProductService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Non-blocking variant of {@link ProductController}. Listings stream one product per line
+ * with {@code Accept: application/x-ndjson}; with plain JSON they are still sent as one array.
+ */
+@RestController
+@RequestMapping("/reactive/product")
+public class ReactiveProductController {
+
+    private final ProductService productService;
+    private final ReactiveRepositories reactive;
+
+    @Autowired
+    public ReactiveProductController(ProductService productService, ReactiveRepositories reactive) {
+        this.productService = productService;
+        this.reactive = reactive;
+    }
+
+    @PostMapping("/")
+    public Mono<Product> addProduct(@RequestBody Product product) {
+        return reactive.call(() -> productService.addProduct(product));
+    }
+
+    @GetMapping("/")
+    public Flux<Product> getProducts() {
+        return reactive.products().findAll();
+    }
+
+    @GetMapping("/{productId}")
+    public Mono<Product> getProductById(@PathVariable UUID productId) {
+        return reactive.call(() -> productService.getProductById(productId));
+    }
+
+    @PutMapping("/update/{productId}")
+    public Mono<Product> updateProduct(@PathVariable UUID productId, @RequestBody Map<String, Object> body) {
+        String newName = (String) body.get("newName");
+        double newPrice = Double.parseDouble(body.get("newPrice").toString());
+        return reactive.call(() -> productService.updateProduct(productId, newName, newPrice));
+    }
+
+    @PutMapping("/applyDiscount")
+    public Mono<String> applyDiscount(@RequestParam double discount, @RequestBody ArrayList<UUID> productIds) {
+        return reactive.call(() -> {
+            productService.applyDiscount(discount, productIds);
+            return "Discount applied successfully";
+        });
+    }
+
+    @DeleteMapping("/delete/{productId}")
+    public Mono<String> deleteProductById(@PathVariable UUID productId) {
+        return reactive.call(() -> {
+            productService.deleteProductById(productId);
+            return "Product deleted successfully";
+        });
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.controller;
+
+import com.example.model.Cart;
+import com.example.model.Order;
+import com.example.model.Product;
+import com.example.model.User;
+import com.example.repository.ReactiveRepositories;
+import com.example.service.CartService;
+import com.example.service.ProductService;
+import com.example.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Non-blocking variant of {@link UserController}.
+ */
+@RestController
+@RequestMapping("/reactive/user")
+public class ReactiveUserController {
+
+    private final UserService userService;
+    private final CartService cartService;
+    private final ProductService productService;
+    private final ReactiveRepositories reactive;
+
+    @Autowired
+    public ReactiveUserController(UserService userService, CartService cartService, ProductService productService,
+                                  ReactiveRepositories reactive) {
+        this.userService = userService;
+        this.cartService = cartService;
+        this.productService = productService;
+        this.reactive = reactive;
+    }
+
+    @PostMapping("/")
+    public Mono<User> addUser(@RequestBody User user) {
+        return reactive.call(() -> userService.addUser(user));
+    }
+
+    @GetMapping("/")
+    public Flux<User> getUsers() {
+        return reactive.users().findAll();
+    }
+
+    @GetMapping("/{userId}")
+    public Mono<User> getUserById(@PathVariable UUID userId) {
+        return reactive.call(() -> userService.getUserById(userId));
+    }
+
+    @DeleteMapping("/delete/{userId}")
+    public Mono<String> deleteUserById(@PathVariable UUID userId) {
+        return reactive.call(() -> {
+            try {
+                userService.deleteUserById(userId);
+                return "User deleted successfully";
+            } catch (ResponseStatusException ex) {
+                return ex.getReason();
+            }
+        });
+    }
+
+    @GetMapping("/{userId}/orders")
+    public Flux<Order> getOrdersByUserId(@PathVariable UUID userId) {
+        return reactive.call(() -> userService.getOrdersByUserId(userId)).flatMapIterable(orders -> orders);
+    }
+
+    @PostMapping("/{userId}/checkout")
+    public Mono<String> addOrderToUser(@PathVariable UUID userId) {
+        return reactive.call(() -> {
+            userService.addOrderToUser(userId);
+            return "Order added successfully";
+        });
+    }
+
+    @PostMapping("/{userId}/removeOrder")
+    public Mono<String> removeOrderFromUser(@PathVariable UUID userId, @RequestParam UUID orderId) {
+        return reactive.call(() -> {
+            userService.removeOrderFromUser(userId, orderId);
+            return "Order removed successfully";
+        });
+    }
+
+    @DeleteMapping("/{userId}/emptyCart")
+    public Mono<String> emptyCart(@PathVariable UUID userId) {
+        return reactive.call(() -> {
+            userService.emptyCart(userId);
+            return "Cart emptied successfully";
+        });
+    }
+
+    @PutMapping("/addProductToCart")
+    public Mono<String> addProductToCart(@RequestParam UUID userId, @RequestParam UUID productId) {
+        return reactive.call(() -> {
+            Cart cart = cartService.getOrCreateCart(userId);
+            Product product = productService.getProductById(productId);
+            if (product == null) {
+                return "Product not found";
+            }
+            cartService.addProductToCart(cart.getId(), product);
+            return "Product added to cart";
+        });
+    }
+
+    @PutMapping("/deleteProductFromCart")
+    public Mono<String> deleteProductFromCart(@RequestParam UUID userId, @RequestParam UUID productId) {
+        return reactive.call(() -> {
+            Cart cart = cartService.getCartByUserId(userId);
+            if (cart == null) {
+                return "Cart is empty";
+            }
+            return cartService.deleteProductFromCart(cart.getId(), productId);
+        });
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.controller;
+
+import com.example.repository.CompactionStats;
+import com.example.repository.LockStats;
+import com.example.repository.LogCompactor;
+import com.example.repository.MainRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/storage")
+public class StorageController {
+
+    private final LogCompactor logCompactor;
+    private final List<MainRepository<?>> repositories;
+
+    @Autowired
+    public StorageController(LogCompactor logCompactor, List<MainRepository<?>> repositories) {
+        this.logCompactor = logCompactor;
+        this.repositories = repositories;
+    }
+
+    // 1) Compaction Stats: GET /storage/compaction (empty in JSON mode)
+    @GetMapping("/compaction")
+    public List<CompactionStats> getCompactionStats() {
+        return logCompactor.getStats();
+    }
+
+    // 2) Lock Contention: GET /storage/locks (per entity, stripes that have been used)
+    @GetMapping("/locks")
+    public Map<String, List<LockStats>> getLockStats() {
+        Map<String, List<LockStats>> stats = new LinkedHashMap<>();
+        for (MainRepository<?> repository : repositories) {
+            stats.put(repository.getEntityName(), repository.getLockStats());
+        }
+        return stats;
+    }
+}
@@ -4,11 +4,19 @@ import com.example.model.Cart;
 import com.example.model.Order;
 import com.example.model.Product;
 import com.example.model.User;
+import com.example.repository.ImportResult;
+import com.example.repository.Page;
 import com.example.service.CartService;
 import com.example.service.ProductService;
 import com.example.service.UserService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.server.ResponseStatusException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -21,12 +29,15 @@ public class UserController {
     private final UserService userService;
     private final CartService cartService;
     private final ProductService productService;
+    private final ResponseCache responseCache;
 
     @Autowired
-    public UserController(UserService userService, CartService cartService, ProductService productService) {
+    public UserController(UserService userService, CartService cartService, ProductService productService,
+                          ResponseCache responseCache) {
         this.userService = userService;
         this.cartService = cartService;
         this.productService = productService;
+        this.responseCache = responseCache;
     }
 
     // 1) Add User Endpoint: POST /user/
@@ -36,15 +47,46 @@ public class UserController {
     }
 
     // 2) Get All Users Endpoint: GET /user/
+    //    served from the response cache until the users change; 304 for a current If-None-Match
+    //    with limit or after: one page {items, next} in file order
+    //    users list order ids; with expand=orders each user's orders are filled in
     @GetMapping("/")
-    public ArrayList<User> getUsers() {
-        return userService.getUsers();
+    public ResponseEntity<?> getUsers(@RequestParam(required = false) Integer limit,
+                                      @RequestParam(required = false) String after,
+                                      @RequestParam(required = false) String expand,
+                                      WebRequest request) {
+        boolean withOrders = expandsOrders(expand);
+        if (Page.requested(limit, after, null)) {
+            return ResponseEntity.ok(withOrders
+                    ? userService.getUsersWithOrdersPage(after, Page.limit(limit))
+                    : userService.getUsersPage(after, Page.limit(limit)));
+        }
+        if (withOrders) {
+            return responseCache.respond("users?expand=orders", userService.getUsersWithOrdersVersion(),
+                    userService::getUsersWithOrders, request);
+        }
+        return responseCache.respond("users", userService.getUsersVersion(), userService::getUsers, request);
+    }
+
+    // 1b) Import Users Endpoint: POST /user/import
+    //     NDJSON body, one user per line; users whose id is already stored are skipped
+    @PostMapping("/import")
+    public ImportResult importUsers(InputStream body) throws IOException {
+        return userService.importUsers(body);
+    }
+
+    // 2b) Export Users Endpoint: GET /user/export?format=ndjson
+    //     one user per line, streamed from the repository (nothing is collected in memory)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "ndjson") String format) {
+        return NdjsonExport.of(format, "users", userService::exportUsers);
     }
 
     // 3) Get Specific User Endpoint: GET /user/{userId}
+    //    with expand=orders the user's orders are filled in
     @GetMapping("/{userId}")
-    public User getUserById(@PathVariable UUID userId) {
-        return userService.getUserById(userId);
+    public User getUserById(@PathVariable UUID userId, @RequestParam(required = false) String expand) {
+        return expandsOrders(expand) ? userService.getUserWithOrders(userId) : userService.getUserById(userId);
     }
 
     // 4) Delete User Endpoint: DELETE /user/delete/{userId}
@@ -88,13 +130,8 @@ public class UserController {
     // 9) Add Product to Cart: PUT /user/addProductToCart
     @PutMapping("/addProductToCart")
     public String addProductToCart(@RequestParam UUID userId, @RequestParam UUID productId) {
-        // Retrieve cart for the given user
-        Cart cart = cartService.getCartByUserId(userId);
-        if (cart == null) {
-            // Create a new cart if none exists
-            cart = new Cart(userId);
-            cart = cartService.addCart(cart);
-        }
+        // Retrieve the user's cart, creating it if none exists
+        Cart cart = cartService.getOrCreateCart(userId);
         // Retrieve the product using ProductService
         Product product = productService.getProductById(productId);
         if (product == null) {
@@ -116,4 +153,14 @@ public class UserController {
         // Delegate to CartService to delete the product
         return cartService.deleteProductFromCart(cart.getId(), productId);
     }
+
+    private static boolean expandsOrders(String expand) {
+        if (expand == null) {
+            return false;
+        }
+        if (!expand.equals("orders")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported expand: " + expand);
+        }
+        return true;
+    }
 }
@@ -0,0 +1,7 @@
+package com.example.metrics;
+
+/**
+ * Hits and misses of one cache; {@code hitRatio} is hits / (hits + misses), 0 before any lookup.
+ */
+public record CacheStats(long hits, long misses, double hitRatio) {
+}
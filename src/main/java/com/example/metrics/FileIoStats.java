@@ -0,0 +1,7 @@
+package com.example.metrics;
+
+/**
+ * I/O on one data file since startup (or the last reset).
+ */
+public record FileIoStats(String file, long reads, long bytesRead, long writes, long bytesWritten) {
+}
@@ -0,0 +1,59 @@
+package com.example.metrics;
+
+import jakarta.annotation.PostConstruct;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * With the "jfr" profile: a continuous flight recording named "continuous", kept on disk for
+ * jfrMaxAgeMinutes / up to jfrMaxSizeMb and written to jfrDirectory when the JVM exits. It holds the
+ * {@link StorageEvent}s together with the JDK's GC, safepoint, file and socket events, so a
+ * latency spike can be lined up against pauses and disk stalls in Mission Control. Take a
+ * dump from a running container without stopping it with
+ * {@code jcmd 1 JFR.dump name=continuous filename=/app/jfr/now.jfr}.
+ */
+@Component
+@Profile("jfr")
+public class FlightRecording {
+
+    @Value("${spring.application.jfrSettings:default}")
+    private String settings;
+
+    @Value("${spring.application.jfrMaxAgeMinutes:360}")
+    private long maxAgeMinutes;
+
+    @Value("${spring.application.jfrMaxSizeMb:512}")
+    private long maxSizeMb;
+
+    @Value("${spring.application.jfrDirectory:jfr}")
+    private String directory;
+
+    private Recording recording;
+
+    // JFR's own shutdown hook writes the file; a @PreDestroy dump would race with it.
+    @PostConstruct
+    void start() throws IOException, ParseException {
+        Path dir = Path.of(directory);
+        Files.createDirectories(dir);
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        recording = new Recording(Configuration.getConfiguration(settings));
+        recording.setName("continuous");
+        recording.setToDisk(true);
+        recording.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+        recording.setMaxSize(maxSizeMb * 1024 * 1024);
+        recording.setDestination(dir.resolve("continuous-" + stamp + ".jfr"));
+        recording.setDumpOnExit(true);
+        recording.start();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HDR-style histogram of non-negative longs (latencies in nanoseconds, row counts).
+ * Values below 128 get a bucket each; above that every power of two is split into 64
+ * buckets, so any recorded value is reported within 1.6% of itself whatever its magnitude,
+ * in a fixed 3712 counters. Recording is lock-free and allocation-free.
+ */
+public final class Histogram {
+
+    private static final int LINEAR = 128;
+    private static final int SUB_BUCKETS = 64;
+    private static final int SUB_BITS = 6;
+    private static final int BUCKETS = LINEAR + (63 - 7) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0; // nanoTime differences are never negative in practice; clamp just in case
+        }
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Count, mean, p50, p99, p99.9 and max, each divided by {@code unit}
+     * (1000 turns nanoseconds into microseconds, 1 keeps plain counts).
+     */
+    public HistogramSnapshot snapshot(double unit) {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        if (total == 0) {
+            return new HistogramSnapshot(0, 0, 0, 0, 0, 0);
+        }
+        long[] percentiles = valuesAt(copy, total, 0.50, 0.99, 0.999);
+        return new HistogramSnapshot(total, sum.sum() / (double) count.sum() / unit,
+                percentiles[0] / unit, percentiles[1] / unit, percentiles[2] / unit, max.get() / unit);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    private static long[] valuesAt(long[] copy, long total, double... quantiles) {
+        long[] values = new long[quantiles.length];
+        int q = 0;
+        long seen = 0;
+        for (int i = 0; i < copy.length && q < quantiles.length; i++) {
+            seen += copy[i];
+            while (q < quantiles.length && seen >= Math.ceil(quantiles[q] * total)) {
+                values[q++] = valueOf(i);
+            }
+        }
+        return values;
+    }
+
+    static int bucketOf(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // 7..62
+        int shift = exponent - SUB_BITS;
+        int sub = (int) (value >>> shift) - SUB_BUCKETS; // 0..63
+        return LINEAR + (exponent - 7) * SUB_BUCKETS + sub;
+    }
+
+    /** The middle of the bucket's range. */
+    static long valueOf(int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR) / SUB_BUCKETS + 7;
+        int shift = exponent - SUB_BITS;
+        long lower = (long) ((bucket - LINEAR) % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lower + (1L << shift) / 2;
+    }
+}
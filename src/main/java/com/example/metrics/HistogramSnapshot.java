@@ -0,0 +1,7 @@
+package com.example.metrics;
+
+/**
+ * Summary of a {@link Histogram}: latencies in microseconds, row counts as they are.
+ */
+public record HistogramSnapshot(long count, double mean, double p50, double p99, double p999, double max) {
+}
@@ -0,0 +1,31 @@
+package com.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hits and misses of one cache.
+ */
+public final class HitCounter {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    public CacheStats snapshot() {
+        long h = hits.sum();
+        long m = misses.sum();
+        return new CacheStats(h, m, h + m == 0 ? 0 : h / (double) (h + m));
+    }
+
+    public void reset() {
+        hits.reset();
+        misses.reset();
+    }
+}
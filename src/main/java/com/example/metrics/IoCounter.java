@@ -0,0 +1,40 @@
+package com.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bytes read from and written to one file, and how many reads and writes moved them.
+ */
+public final class IoCounter {
+
+    private final String file;
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+
+    public IoCounter(String file) {
+        this.file = file;
+    }
+
+    public void read(long bytes) {
+        reads.increment();
+        bytesRead.add(bytes);
+    }
+
+    public void written(long bytes) {
+        writes.increment();
+        bytesWritten.add(bytes);
+    }
+
+    public FileIoStats snapshot() {
+        return new FileIoStats(file, reads.sum(), bytesRead.sum(), writes.sum(), bytesWritten.sum());
+    }
+
+    public void reset() {
+        reads.reset();
+        bytesRead.reset();
+        writes.reset();
+        bytesWritten.reset();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Application-wide metrics that do not belong to one repository: request latency per
+ * controller method (recorded by {@link MetricsInterceptor}) and cache hit ratios.
+ * Repository operations, rows scanned and file I/O are kept by each repository
+ * (see {@code MainRepository.getMetrics()}).
+ */
+@Component
+public class Metrics {
+
+    private final Map<String, Histogram> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, HitCounter> caches = new ConcurrentHashMap<>();
+
+    public Histogram endpoint(String name) {
+        return endpoints.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    public HitCounter cache(String name) {
+        return caches.computeIfAbsent(name, n -> new HitCounter());
+    }
+
+    /** Latency per controller method in microseconds, sorted by name. */
+    public Map<String, HistogramSnapshot> getEndpoints() {
+        Map<String, HistogramSnapshot> snapshot = new TreeMap<>();
+        endpoints.forEach((name, histogram) -> snapshot.put(name, histogram.snapshot(1_000)));
+        return snapshot;
+    }
+
+    public Map<String, CacheStats> getCaches() {
+        Map<String, CacheStats> snapshot = new TreeMap<>();
+        caches.forEach((name, counter) -> snapshot.put(name, counter.snapshot()));
+        return snapshot;
+    }
+
+    public void reset() {
+        endpoints.values().forEach(Histogram::reset);
+        caches.values().forEach(HitCounter::reset);
+    }
+}
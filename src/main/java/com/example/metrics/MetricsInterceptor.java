@@ -0,0 +1,42 @@
+package com.example.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Times every request handled by a controller method, under "Controller.method". The clock
+ * starts on the first dispatch and stops when the response is complete, so the reactive
+ * endpoints (handled asynchronously, then dispatched again) are timed end to end.
+ */
+@Component
+public class MetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String STARTED = MetricsInterceptor.class.getName() + ".started";
+
+    private final Metrics metrics;
+
+    public MetricsInterceptor(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(STARTED) == null) {
+            request.setAttribute(STARTED, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (!(handler instanceof HandlerMethod method) || !(request.getAttribute(STARTED) instanceof Long started)) {
+            return;
+        }
+        String name = method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        metrics.endpoint(name).record(System.nanoTime() - started);
+    }
+}
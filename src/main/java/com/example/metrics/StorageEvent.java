@@ -0,0 +1,80 @@
+package com.example.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for the storage layer, shown in Mission Control under
+ * MiniProject1 / Storage next to the JDK's GC, safepoint and file I/O events. Every event
+ * carries the entity ("Product", "Cart", ...), the rows and bytes it covered, and its duration.
+ * <p>
+ * Usage follows the JFR idiom: create, {@code begin()}, do the work, then {@link #finish}.
+ * Without a running recording {@code finish} does nothing and the event never escapes,
+ * so the JIT removes it.
+ */
+@Category({"MiniProject1", "Storage"})
+@StackTrace(false)
+public abstract class StorageEvent extends Event {
+
+    @Label("Entity")
+    public String entity;
+
+    @Label("Records")
+    public long records;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    public void finish(String entity, long records, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.entity = entity;
+            this.records = records;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+
+    @Name("com.example.storage.FileRead")
+    @Label("Storage File Read")
+    @Description("A data file (or log) read into memory")
+    public static final class FileRead extends StorageEvent {
+    }
+
+    @Name("com.example.storage.Parse")
+    @Label("Storage Parse")
+    @Description("Rows decoded from bytes already read, or replayed from the log")
+    public static final class Parse extends StorageEvent {
+    }
+
+    @Name("com.example.storage.Serialize")
+    @Label("Storage Serialize")
+    @Description("Rows encoded into bytes before being written")
+    public static final class Serialize extends StorageEvent {
+    }
+
+    @Name("com.example.storage.FileWrite")
+    @Label("Storage File Write")
+    @Description("Bytes written to a data file, log or temp file (without the fsync)")
+    public static final class FileWrite extends StorageEvent {
+    }
+
+    @Name("com.example.storage.Fsync")
+    @Label("Storage Fsync")
+    @Description("A data file, log or directory forced to disk")
+    public static final class Fsync extends StorageEvent {
+    }
+
+    @Name("com.example.storage.LockWait")
+    @Label("Storage Lock Wait")
+    @Description("Time a caller waited for a repository's write lock or an entity stripe lock")
+    @StackTrace(true)
+    public static final class LockWait extends StorageEvent {
+    }
+}
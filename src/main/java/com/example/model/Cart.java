@@ -1,29 +1,38 @@
 package com.example.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.stereotype.Component;
+
 import java.util.*;
 
+/**
+ * A user's cart, stored as one {@link CartLine} (product id and quantity) per product. In
+ * JSON the lines are the "products" array; older files that list every product in full,
+ * once per unit, are read into lines too. {@link #getProducts()} is a live list view that
+ * repeats each product by its quantity, as the cart used to hold them.
+ */
 @Component
 public class Cart {
     private UUID id;
     private UUID userId;
-    private List<Product> products;
+    // Keyed by product id, in the order the products were first added.
+    private final LinkedHashMap<UUID, CartLine> lines = new LinkedHashMap<>();
+    private final List<Product> products = new ProductView();
 
     public Cart() {
         this.id = UUID.randomUUID();
-        this.products = new ArrayList<>();
     }
 
     public Cart(UUID userId) {
         this.id = UUID.randomUUID();
         this.userId = userId;
-        this.products = new ArrayList<>();
     }
 
     public Cart(UUID id, UUID userId, List<Product> products) {
         this.id = id;
         this.userId = userId;
-        this.products = products;
+        setProducts(products);
     }
 
     public UUID getId() { return id; }
@@ -32,6 +41,90 @@ public class Cart {
     public UUID getUserId() { return userId; }
     public void setUserId(UUID userId) { this.userId = userId; }
 
+    @JsonProperty("products")
+    public List<CartLine> getLines() { return new ArrayList<>(lines.values()); }
+
+    @JsonProperty("products")
+    public void setLines(List<CartLine> lines) {
+        this.lines.clear();
+        if (lines != null) {
+            for (CartLine line : lines) {
+                CartLine existing = this.lines.putIfAbsent(line.getId(), line);
+                if (existing != null) {
+                    existing.setQuantity(existing.getQuantity() + line.getQuantity());
+                }
+            }
+        }
+    }
+
+    @JsonIgnore
     public List<Product> getProducts() { return products; }
-    public void setProducts(List<Product> products) { this.products = products; }
+
+    @JsonIgnore
+    public void setProducts(List<Product> products) {
+        lines.clear();
+        if (products != null) {
+            this.products.addAll(products);
+        }
+    }
+
+    /**
+     * Products repeated by quantity. Adding a product bumps its line (keeping its name and
+     * price until the repository finds it in the catalog); removing one unit decrements it.
+     */
+    private final class ProductView extends AbstractList<Product> {
+
+        @Override
+        public Product get(int index) {
+            if (index >= 0) {
+                for (CartLine line : lines.values()) {
+                    if (index < line.getQuantity()) {
+                        return line.toProduct();
+                    }
+                    index -= line.getQuantity();
+                }
+            }
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (CartLine line : lines.values()) {
+                size += line.getQuantity();
+            }
+            return size;
+        }
+
+        @Override
+        public boolean add(Product product) {
+            CartLine line = lines.get(product.getId());
+            if (line == null) {
+                lines.put(product.getId(), new CartLine(product.getId(), 1, product.getName(), product.getPrice()));
+            } else {
+                line.setQuantity(line.getQuantity() + 1);
+            }
+            modCount++;
+            return true;
+        }
+
+        @Override
+        public Product remove(int index) {
+            Product removed = get(index);
+            CartLine line = lines.get(removed.getId());
+            if (line.getQuantity() > 1) {
+                line.setQuantity(line.getQuantity() - 1);
+            } else {
+                lines.remove(removed.getId());
+            }
+            modCount++;
+            return removed;
+        }
+
+        @Override
+        public void clear() {
+            lines.clear();
+            modCount++;
+        }
+    }
 }
@@ -0,0 +1,49 @@
+package com.example.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+/**
+ * One product in a cart and how many of it. Name and price are only stored for products
+ * the catalog doesn't know; for the others they are filled in from the catalog when the
+ * cart is read, so they are never stale.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CartLine {
+    private UUID id;
+    private int quantity = 1;
+    private String name;
+    private Double price;
+
+    public CartLine() {}
+
+    public CartLine(UUID id, int quantity, String name, Double price) {
+        this.id = id;
+        this.quantity = quantity;
+        this.name = name;
+        this.price = price;
+    }
+
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Double getPrice() { return price; }
+    public void setPrice(Double price) { this.price = price; }
+
+    /** Drops the stored name and price; the catalog has them. */
+    public void forgetDetails() {
+        name = null;
+        price = null;
+    }
+
+    public Product toProduct() {
+        return new Product(id, name, price == null ? 0.0 : price);
+    }
+}
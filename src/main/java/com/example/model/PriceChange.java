@@ -0,0 +1,27 @@
+package com.example.model;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A bulk price change: the products it targets and the discount in percent applied to
+ * them (negative raises prices). Targeting combines explicit ids, a price range
+ * (inclusive) and a name prefix; a product must match every criterion that is given.
+ */
+public record PriceChange(Set<UUID> ids, Double minPrice, Double maxPrice, String namePrefix, double discount) {
+
+    public boolean targetsSomething() {
+        return ids != null || minPrice != null || maxPrice != null || namePrefix != null;
+    }
+
+    public boolean matches(Product product) {
+        return (ids == null || ids.contains(product.getId()))
+                && (minPrice == null || product.getPrice() >= minPrice)
+                && (maxPrice == null || product.getPrice() <= maxPrice)
+                && (namePrefix == null || (product.getName() != null && product.getName().startsWith(namePrefix)));
+    }
+
+    public double apply(double price) {
+        return price * (1 - discount / 100);
+    }
+}
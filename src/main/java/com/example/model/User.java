@@ -7,9 +7,15 @@ import java.util.UUID;
 // Make sure to import Order if it's in a different package
 import com.example.model.Order;
 
+/**
+ * A user and the ids of their orders; the orders themselves live in orders.json. orders
+ * only holds full orders when a response asks for them (?expand=orders), or for old
+ * records whose orders never made it into orders.json.
+ */
 public class User {
     private UUID id;
     private String name;
+    private List<UUID> orderIds = new ArrayList<>();
     private List<Order> orders = new ArrayList<>();
 
     // No-argument constructor
@@ -45,6 +51,14 @@ public class User {
         this.name = name;
     }
 
+    public List<UUID> getOrderIds() {
+        return orderIds;
+    }
+
+    public void setOrderIds(List<UUID> orderIds) {
+        this.orderIds = orderIds;
+    }
+
     public List<Order> getOrders() {
         return orders;
     }
@@ -0,0 +1,294 @@
+package com.example.repository;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import com.example.metrics.IoCounter;
+import com.example.metrics.StorageEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Log-structured storage: the {@code *.json} file is a base snapshot and every change is
+ * appended to {@code *.json.log} as one line {"op":"ADD|PUT|DELETE","id":...,"data":{...}}.
+ * Startup loads the snapshot and replays the log, so a write costs one small append
+ * regardless of how many rows the entity set holds. Appends are forced per batch under the
+ * {@code always} fsync policy; snapshots are forced under every policy except {@code os},
+ * because they replace log records that may already have been forced.
+ */
+class AppendLogStorage<T> implements EntityStorage<T> {
+
+    private final ObjectMapper objectMapper;
+    private final Path file;
+    private final Path logFile;
+    private final Class<T[]> arrayType;
+    private final FsyncPolicy fsyncPolicy;
+    private final String entity;
+    private final IoCounter snapshotIo;
+    private final IoCounter logIo;
+    private FileChannel log;
+    private long logRecords;
+    // Bumped by every full rewrite so a compaction started before it knows to give up.
+    private long generation;
+
+    AppendLogStorage(ObjectMapper objectMapper, Path file, Class<T[]> arrayType, FsyncPolicy fsyncPolicy,
+                     RepositoryMetrics metrics) {
+        this.objectMapper = objectMapper;
+        this.file = file;
+        this.logFile = file.resolveSibling(file.getFileName() + ".log");
+        this.arrayType = arrayType;
+        this.fsyncPolicy = fsyncPolicy;
+        this.entity = arrayType.getComponentType().getSimpleName();
+        this.snapshotIo = metrics.file(file);
+        this.logIo = metrics.file(logFile);
+    }
+
+    @Override
+    public void load(EntityStore<T> into) throws IOException {
+        if (Files.exists(file)) {
+            byte[] bytes = DurableFiles.read(file, entity);
+            StorageEvent.Parse parse = new StorageEvent.Parse();
+            parse.begin();
+            T[] array = objectMapper.readValue(bytes, arrayType);
+            into.addAll(Arrays.asList(array));
+            parse.finish(entity, array.length, bytes.length);
+            snapshotIo.read(bytes.length);
+        }
+        long validBytes = replay(into);
+        if (log == null) {
+            log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        }
+        // A crash can leave half a record at the end; cut it off before appending behind it.
+        if (log.size() > validBytes) {
+            log.truncate(validBytes);
+        }
+        log.position(validBytes);
+    }
+
+    @Override
+    public void append(EntityStore<T> state, List<Mutation<T>> batch) throws IOException {
+        StorageEvent.Serialize serialize = new StorageEvent.Serialize();
+        serialize.begin();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 * batch.size());
+        for (Mutation<T> mutation : batch) {
+            writeRecord(out, mutation);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        serialize.finish(entity, batch.size(), buffer.capacity());
+        StorageEvent.FileWrite write = new StorageEvent.FileWrite();
+        write.begin();
+        while (buffer.hasRemaining()) {
+            log.write(buffer);
+        }
+        write.finish(entity, batch.size(), buffer.capacity());
+        logIo.written(buffer.capacity());
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            forceLog(batch.size(), buffer.capacity());
+        }
+        logRecords += batch.size();
+    }
+
+    /**
+     * Writes a fresh snapshot and empties the log. The snapshot is renamed into place
+     * before the log is cut, and replay is idempotent, so a crash in between only means
+     * the old records are replayed onto a snapshot that already contains them.
+     */
+    @Override
+    public void rewrite(EntityStore<T> state) throws IOException {
+        snapshotIo.written(DurableFiles.replace(file, out -> objectMapper.writeValue(out, state.values()),
+                forceSnapshots(), entity, state.size()));
+        log.truncate(0);
+        log.position(0);
+        logRecords = 0;
+        generation++;
+    }
+
+    /**
+     * The point a compaction starts from: everything in the log up to {@code logBytes}
+     * is covered by the rows captured at the same time.
+     */
+    record Mark(long generation, long logBytes, long logRecords) {
+    }
+
+    Mark mark() throws IOException {
+        return new Mark(generation, log.size(), logRecords);
+    }
+
+    boolean needsCompaction(long maxRecords, double logRatio, long minLogBytes) throws IOException {
+        long logBytes = log.size();
+        if (logRecords == 0) {
+            return false;
+        }
+        if (logRecords >= maxRecords) {
+            return true;
+        }
+        return logBytes >= minLogBytes && logBytes >= logRatio * snapshotBytes();
+    }
+
+    long snapshotBytes() throws IOException {
+        return Files.exists(file) ? Files.size(file) : 0;
+    }
+
+    long logBytes() throws IOException {
+        return log.size();
+    }
+
+    /**
+     * Serializes captured rows next to the snapshot. Runs without the write lock.
+     */
+    Path writeSnapshot(Collection<T> rows) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".compact");
+        snapshotIo.written(DurableFiles.write(tmp, out -> objectMapper.writeValue(out, rows), forceSnapshots(),
+                entity, rows.size()));
+        return tmp;
+    }
+
+    /**
+     * Puts a snapshot written by {@link #writeSnapshot} in place and drops the log records it
+     * covers, keeping anything appended after the mark. Called under the write lock; returns
+     * the bytes reclaimed, or -1 when a full rewrite happened in the meantime.
+     */
+    long install(Path snapshot, Mark mark) throws IOException {
+        if (mark.generation() != generation) {
+            Files.deleteIfExists(snapshot);
+            return -1;
+        }
+        long before = snapshotBytes() + log.size();
+        DurableFiles.move(snapshot, file, forceSnapshots());
+
+        Path tail = logFile.resolveSibling(logFile.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(tail, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = mark.logBytes();
+            long end = log.size();
+            long records = logRecords - mark.logRecords();
+            StorageEvent.FileWrite write = new StorageEvent.FileWrite();
+            write.begin();
+            while (position < end) {
+                position += log.transferTo(position, end - position, out);
+            }
+            write.finish(entity, records, end - mark.logBytes());
+            logIo.written(end - mark.logBytes());
+            if (forceSnapshots()) {
+                StorageEvent.Fsync fsync = new StorageEvent.Fsync();
+                fsync.begin();
+                out.force(false);
+                fsync.finish(entity, records, end - mark.logBytes());
+            }
+        }
+        log.close();
+        DurableFiles.move(tail, logFile, forceSnapshots());
+        log = FileChannel.open(logFile, StandardOpenOption.WRITE);
+        log.position(log.size());
+        logRecords -= mark.logRecords();
+        return before - (snapshotBytes() + log.size());
+    }
+
+    @Override
+    public void sync() throws IOException {
+        forceLog(logRecords, log.size());
+    }
+
+    private void forceLog(long records, long bytes) throws IOException {
+        StorageEvent.Fsync fsync = new StorageEvent.Fsync();
+        fsync.begin();
+        log.force(false);
+        fsync.finish(entity, records, bytes);
+    }
+
+    @Override
+    public boolean isStale() {
+        return false; // the log is only written by this process
+    }
+
+    @Override
+    public boolean uniqueIds() {
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    private boolean forceSnapshots() {
+        return fsyncPolicy != FsyncPolicy.OS;
+    }
+
+    long getLogRecords() {
+        return logRecords;
+    }
+
+    private void writeRecord(ByteArrayOutputStream out, Mutation<T> mutation) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("op", mutation.getOp().name());
+            if (mutation.getId() != null) {
+                generator.writeStringField("id", mutation.getId().toString());
+            }
+            if (mutation.getData() != null) {
+                generator.writeFieldName("data");
+                objectMapper.writeValue(generator, mutation.getData());
+            }
+            generator.writeEndObject();
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Replays every complete line of the log and returns the byte length they cover.
+     */
+    @SuppressWarnings("unchecked")
+    private long replay(EntityStore<T> into) throws IOException {
+        logRecords = 0;
+        if (!Files.exists(logFile)) {
+            return 0;
+        }
+        Class<T> type = (Class<T>) arrayType.getComponentType();
+        StorageEvent.Parse parse = new StorageEvent.Parse();
+        parse.begin();
+        long offset = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(logFile))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                JsonNode record;
+                try {
+                    record = objectMapper.readTree(line.toByteArray());
+                } catch (IOException e) {
+                    break; // garbage from a torn write; everything after it is discarded
+                }
+                Mutation.Op op = Mutation.Op.valueOf(record.get("op").asText());
+                UUID id = record.hasNonNull("id") ? UUID.fromString(record.get("id").asText()) : null;
+                T data = record.hasNonNull("data") ? objectMapper.treeToValue(record.get("data"), type) : null;
+                Mutation<T> mutation = op == Mutation.Op.DELETE ? Mutation.delete(id)
+                        : op == Mutation.Op.PUT ? Mutation.put(id, data) : Mutation.add(id, data);
+                mutation.replay(into);
+                offset += line.size() + 1;
+                logRecords++;
+                line.reset();
+            }
+        }
+        parse.finish(entity, logRecords, offset);
+        logIo.read(Files.size(logFile));
+        return offset;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import com.example.metrics.IoCounter;
+import com.example.metrics.StorageEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Binary counterpart of {@link JsonFileStorage}: the entity set in {@code <dataPath>.bin},
+ * rewritten through a temp file and an atomic rename on every change.
+ * <p>
+ * Layout: magic, format version, entity name, then one record per row, each an int length
+ * followed by the {@link RecordCodec} bytes. When the binary file does not exist yet the
+ * JSON file is imported once; the JSON file itself is left alone from then on.
+ */
+class BinaryFileStorage<T> implements EntityStorage<T> {
+
+    private static final int MAGIC = 0x4D504231; // "MPB1"
+    // 2: carts hold product lines instead of product copies. 3: users hold order ids.
+    // Older files are still read.
+    private static final int VERSION = 3;
+
+    private final ObjectMapper objectMapper;
+    private final Path jsonFile;
+    private final Path file;
+    private final Class<T[]> arrayType;
+    private final RecordCodec<T> codec;
+    private final String entityName;
+    private final FsyncPolicy fsyncPolicy;
+    private final IoCounter io;
+
+    BinaryFileStorage(ObjectMapper objectMapper, Path jsonFile, Class<T[]> arrayType, RecordCodec<T> codec,
+                      FsyncPolicy fsyncPolicy, RepositoryMetrics metrics) {
+        this.objectMapper = objectMapper;
+        this.jsonFile = jsonFile;
+        this.file = jsonFile.resolveSibling(jsonFile.getFileName() + ".bin");
+        this.arrayType = arrayType;
+        this.codec = codec;
+        this.entityName = arrayType.getComponentType().getSimpleName();
+        this.fsyncPolicy = fsyncPolicy;
+        this.io = metrics.file(file);
+    }
+
+    @Override
+    public void load(EntityStore<T> into) throws IOException {
+        if (!Files.exists(file)) {
+            if (Files.exists(jsonFile)) {
+                into.addAll(Arrays.asList(objectMapper.readValue(jsonFile.toFile(), arrayType)));
+            }
+            rewrite(into);
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(DurableFiles.read(file, entityName));
+        io.read(buffer.capacity());
+        StorageEvent.Parse parse = new StorageEvent.Parse();
+        parse.begin();
+        int records = 0;
+        DataInputStream header = new DataInputStream(new ByteArrayInputStream(buffer.array()));
+        if (header.readInt() != MAGIC) {
+            throw new IOException(file + " is not a binary data file");
+        }
+        int version = header.readInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException(file + " has format version " + version + ", expected at most " + VERSION);
+        }
+        String stored = header.readUTF();
+        if (!entityName.equals(stored)) {
+            throw new IOException(file + " holds " + stored + " records, expected " + entityName);
+        }
+        buffer.position(buffer.capacity() - header.available());
+        while (buffer.hasRemaining()) {
+            if (buffer.remaining() < Integer.BYTES) {
+                throw new IOException(file + " ends in the middle of a record");
+            }
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IOException(file + " ends in the middle of a record");
+            }
+            into.add(codec.read(new DataInputStream(
+                    new ByteArrayInputStream(buffer.array(), buffer.position(), length)), version));
+            buffer.position(buffer.position() + length);
+            records++;
+        }
+        parse.finish(entityName, records, buffer.capacity());
+    }
+
+    @Override
+    public void append(EntityStore<T> state, List<Mutation<T>> batch) throws IOException {
+        rewrite(state);
+    }
+
+    @Override
+    public void rewrite(EntityStore<T> state) throws IOException {
+        io.written(DurableFiles.replace(file, out -> {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeUTF(entityName);
+            ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+            DataOutputStream recordData = new DataOutputStream(record);
+            for (T row : state.values()) {
+                record.reset();
+                codec.write(recordData, row);
+                data.writeInt(record.size());
+                record.writeTo(data);
+            }
+            data.flush();
+        }, fsyncPolicy == FsyncPolicy.ALWAYS, entityName, state.size()));
+    }
+
+    @Override
+    public void sync() throws IOException {
+        DurableFiles.force(file, entityName);
+        DurableFiles.forceDirectory(file.toAbsolutePath().getParent());
+    }
+
+    @Override
+    public boolean isStale() {
+        return false; // only this process writes the binary file
+    }
+
+    @Override
+    public boolean uniqueIds() {
+        return false;
+    }
+}
@@ -1,21 +1,42 @@
 package com.example.repository;
 
 import com.example.model.Cart;
+import com.example.model.CartLine;
 import com.example.model.Product;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
 
+/**
+ * Carts are stored as product id and quantity per line. Name and price are kept only for
+ * products missing from the catalog; the rest are looked up in the product index whenever
+ * a cart is read, so a price change shows up in every cart without rewriting them. Files
+ * from before lines (a full product copy per unit) are rewritten in the compact form on
+ * startup.
+ */
 @Repository
 @SuppressWarnings("rawtypes")
 public class CartRepository extends MainRepository<Cart> {
 
-    public CartRepository() {}
+    public CartRepository() {
+        indexBy("userId", Cart::getUserId); // userId -> cart, for getCartByUserId
+    }
 
     @Value("${spring.application.cartDataPath}")
     private String cartDataPath;
 
+    // Absent when the repository is built by hand; carts then keep every product's details.
+    @Autowired(required = false)
+    private ProductRepository catalog;
+
+    @Override
+    void open() {
+        super.open();
+        migrate();
+    }
+
     @Override
     protected String getDataPath() {
         return cartDataPath;
@@ -26,49 +47,133 @@ public class CartRepository extends MainRepository<Cart> {
         return Cart[].class;
     }
 
+    @Override
+    protected UUID getId(Cart cart) {
+        return cart.getId();
+    }
+
+    @Override
+    RecordCodec<Cart> getCodec() {
+        return ModelCodecs.CART;
+    }
+
     public Cart addCart(Cart cart) {
-        save(cart);
+        Cart compact = copyOf(cart);
+        normalize(compact);
+        save(compact);
         return cart;
     }
 
     public ArrayList<Cart> getCarts() {
-        return findAll();
+        ArrayList<Cart> carts = findAll();
+        carts.replaceAll(this::resolve);
+        return carts;
+    }
+
+    public Page<Cart> getCartsPage(String after, int limit) {
+        Page<Cart> page = findPage(null, after, limit);
+        return new Page<>(page.items().stream().map(this::resolve).toList(), page.next());
+    }
+
+    /**
+     * The user's cart, created when there is none. Runs under the user's stripe lock, so
+     * concurrent first adds for the same user end up in one cart instead of several.
+     */
+    public Cart getOrCreateCart(UUID userId) {
+        return withLocks(List.of(userId), () -> {
+            Cart cart = getCartByUserId(userId);
+            if (cart == null) {
+                cart = addCart(new Cart(userId));
+            }
+            return cart;
+        });
     }
 
     public Cart getCartById(UUID cartId) {
-        return findAll().stream().filter(c -> c.getId().equals(cartId)).findFirst().orElse(null);
+        return resolve(findById(cartId));
     }
 
     public Cart getCartByUserId(UUID userId) {
-        return findAll().stream().filter(c -> c.getUserId().equals(userId)).findFirst().orElse(null);
+        return resolve(findFirst("userId", userId, Cart::getUserId));
     }
 
     public void deleteCartById(UUID cartId) {
-        ArrayList<Cart> carts = findAll();
-        carts.removeIf(c -> c.getId().equals(cartId));
-        overrideData(carts);
+        deleteById(cartId);
     }
 
     public void addProductToCart(UUID cartId, Product product) {
-        ArrayList<Cart> carts = findAll();
-        for (Cart cart : carts) {
-            if (cart.getId().equals(cartId)) {
-                cart.getProducts().add(product);
-                overrideData(carts);
-                return;
+        modify(cartId, cart -> {
+            cart.getProducts().add(product);
+            normalize(cart);
+            return true;
+        });
+    }
+
+    public void emptyCart(UUID cartId) {
+        modify(cartId, cart -> {
+            if (cart.getProducts() == null || cart.getProducts().isEmpty()) {
+                return false; // nothing to write
             }
-        }
+            cart.getProducts().clear();
+            return true;
+        });
     }
 
     public void deleteProductFromCart(UUID cartId, Product product) {
-        ArrayList<Cart> carts = findAll();
-        for (Cart cart : carts) {
-            if (cart.getId().equals(cartId)) {
-                cart.getProducts().removeIf(p -> p.getId().equals(product.getId()));
-                overrideData(carts);
-                 //return;
+        modify(cartId, cart -> cart.getProducts().removeIf(p -> p.getId().equals(product.getId())));
+    }
+
+    @Override
+    Cart view(Cart cart) {
+        return resolve(cart);
+    }
+
+    /**
+     * A copy of {@code cart} with each line's name and price taken from the catalog, or
+     * from the line itself for products the catalog doesn't have (any more).
+     */
+    private Cart resolve(Cart cart) {
+        if (cart == null || catalog == null) {
+            return cart;
+        }
+        List<CartLine> lines = new ArrayList<>();
+        for (CartLine line : cart.getLines()) {
+            Product product = catalog.findById(line.getId());
+            lines.add(product == null
+                    ? new CartLine(line.getId(), line.getQuantity(), line.getName(), line.getPrice())
+                    : new CartLine(line.getId(), line.getQuantity(), product.getName(), product.getPrice()));
+        }
+        Cart resolved = new Cart(cart.getId(), cart.getUserId(), null);
+        resolved.setLines(lines);
+        return resolved;
+    }
+
+    /** Drops the details of catalog products from {@code cart}; true if any were dropped. */
+    private boolean normalize(Cart cart) {
+        if (catalog == null) {
+            return false;
+        }
+        boolean changed = false;
+        for (CartLine line : cart.getLines()) {
+            if ((line.getName() != null || line.getPrice() != null) && catalog.findById(line.getId()) != null) {
+                line.forgetDetails();
+                changed = true;
             }
         }
+        return changed;
     }
-}
 
+    /** Rewrites the file once in the compact form if any cart still carries catalog details. */
+    private void migrate() {
+        ArrayList<Cart> carts = new ArrayList<>();
+        boolean changed = false;
+        for (Cart cart : rows()) {
+            Cart compact = copyOf(cart);
+            changed |= normalize(compact);
+            carts.add(compact);
+        }
+        if (changed) {
+            saveAll(carts);
+        }
+    }
+}
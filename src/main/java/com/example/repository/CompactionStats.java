@@ -0,0 +1,42 @@
+package com.example.repository;
+
+/**
+ * What log compaction has done for one repository, as reported by {@code GET /storage/compaction}.
+ */
+public class CompactionStats {
+
+    private final String entity;
+    private long compactions;
+    private long lastDurationMillis;
+    private long lastBytesReclaimed;
+    private long totalBytesReclaimed;
+    private long logRecords;
+    private long logBytes;
+    private long snapshotBytes;
+
+    public CompactionStats(String entity) {
+        this.entity = entity;
+    }
+
+    synchronized void recordRun(long durationMillis, long bytesReclaimed) {
+        compactions++;
+        lastDurationMillis = durationMillis;
+        lastBytesReclaimed = bytesReclaimed;
+        totalBytesReclaimed += bytesReclaimed;
+    }
+
+    synchronized void recordSizes(long logRecords, long logBytes, long snapshotBytes) {
+        this.logRecords = logRecords;
+        this.logBytes = logBytes;
+        this.snapshotBytes = snapshotBytes;
+    }
+
+    public String getEntity() { return entity; }
+    public synchronized long getCompactions() { return compactions; }
+    public synchronized long getLastDurationMillis() { return lastDurationMillis; }
+    public synchronized long getLastBytesReclaimed() { return lastBytesReclaimed; }
+    public synchronized long getTotalBytesReclaimed() { return totalBytesReclaimed; }
+    public synchronized long getLogRecords() { return logRecords; }
+    public synchronized long getLogBytes() { return logBytes; }
+    public synchronized long getSnapshotBytes() { return snapshotBytes; }
+}
@@ -0,0 +1,132 @@
+package com.example.repository;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import com.example.metrics.StorageEvent;
+
+/**
+ * Crash-safe file replacement: write a temp file next to the target, optionally force it,
+ * then rename it over the target. Readers see either the old or the new content, never a
+ * half-written file.
+ */
+final class DurableFiles {
+
+    interface Body {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private DurableFiles() {
+    }
+
+    /** Returns the number of bytes written. */
+    static long replace(Path target, Body body, boolean force) throws IOException {
+        return replace(target, body, force, null, 0);
+    }
+
+    /**
+     * Like {@link #replace(Path, Body, boolean)}, reporting the serialize, write and fsync
+     * phases as {@link StorageEvent}s for {@code entity} and its {@code records} rows.
+     */
+    static long replace(Path target, Body body, boolean force, String entity, long records) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        long written = write(tmp, body, force, entity, records);
+        move(tmp, target, force);
+        return written;
+    }
+
+    static long write(Path file, Body body, boolean force) throws IOException {
+        return write(file, body, force, null, 0);
+    }
+
+    /**
+     * Writes {@code body} to {@code file}, truncating it first. Jackson closes the streams it
+     * is given, so the stream passed to {@code body} only flushes on close and the file stays
+     * open long enough to be forced. Returns the number of bytes written.
+     * <p>
+     * While a flight recording takes serialize events, the body is serialized into memory
+     * first so that serializing and writing show up as separate events; otherwise it streams
+     * straight to the file and the write event covers both.
+     */
+    static long write(Path file, Body body, boolean force, String entity, long records) throws IOException {
+        StorageEvent.Serialize serialize = new StorageEvent.Serialize();
+        if (serialize.isEnabled()) {
+            serialize.begin();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 16);
+            body.writeTo(buffer);
+            serialize.finish(entity, records, buffer.size());
+            body = buffer::writeTo;
+        }
+        try (FileOutputStream fos = new FileOutputStream(file.toFile())) {
+            OutputStream out = new BufferedOutputStream(fos, 1 << 16) {
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+            StorageEvent.FileWrite write = new StorageEvent.FileWrite();
+            write.begin();
+            body.writeTo(out);
+            out.flush();
+            long written = fos.getChannel().position();
+            write.finish(entity, records, written);
+            if (force) {
+                StorageEvent.Fsync fsync = new StorageEvent.Fsync();
+                fsync.begin();
+                fos.getChannel().force(true);
+                fsync.finish(entity, records, written);
+            }
+            return written;
+        }
+    }
+
+    /** Reads a whole file, reported as a {@link StorageEvent.FileRead} for {@code entity}. */
+    static byte[] read(Path file, String entity) throws IOException {
+        StorageEvent.FileRead read = new StorageEvent.FileRead();
+        read.begin();
+        byte[] bytes = Files.readAllBytes(file);
+        read.finish(entity, 0, bytes.length);
+        return bytes;
+    }
+
+    /** Atomic rename; with {@code force} the directory entry is made durable too. */
+    static void move(Path from, Path to, boolean force) throws IOException {
+        Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (force) {
+            forceDirectory(to.toAbsolutePath().getParent());
+        }
+    }
+
+    static void force(Path file) throws IOException {
+        force(file, null);
+    }
+
+    /** Forces a file, reported as a {@link StorageEvent.Fsync} for {@code entity}. */
+    static void force(Path file, String entity) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        StorageEvent.Fsync fsync = new StorageEvent.Fsync();
+        fsync.begin();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.force(true);
+            fsync.finish(entity, 0, channel.size());
+        }
+    }
+
+    static void forceDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not every platform lets a directory be opened (Windows); the rename itself is still atomic.
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.repository;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * How a repository's resident store is persisted.
+ * Callers hold the repository's write lock for every method except {@link #isStale()}.
+ */
+interface EntityStorage<T> {
+
+    /** Reads the persisted state into an empty store. */
+    void load(EntityStore<T> into) throws IOException;
+
+    /** Makes a batch that has already been applied to {@code state} durable. */
+    void append(EntityStore<T> state, List<Mutation<T>> batch) throws IOException;
+
+    /** Replaces everything on disk with {@code state}. */
+    void rewrite(EntityStore<T> state) throws IOException;
+
+    /** True when the files changed behind our back and the store must be reloaded. */
+    boolean isStale();
+
+    /** Whether an ADD for an existing id replaces it instead of appending a duplicate row. */
+    boolean uniqueIds();
+
+    /** Forces everything written so far to disk (used by the interval fsync policy). */
+    void sync() throws IOException;
+
+    default void close() throws IOException {
+    }
+}
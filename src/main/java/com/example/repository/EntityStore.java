@@ -0,0 +1,259 @@
+package com.example.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * Resident copy of one data file.
+ * Rows are kept in file order (keyed by an insertion sequence) and the first row
+ * for every id is reachable through a primary index. Secondary indexes map another
+ * UUID field (e.g. a cart's userId) to the rows holding it, and sort indexes keep the
+ * rows ordered by some other field (e.g. a product's price) for keyset paging. Both are
+ * updated by every add, replace and remove. Reads are lock-free; writes must be
+ * serialized by the owning repository.
+ */
+final class EntityStore<T> {
+
+    private final Function<T, UUID> idOf;
+    private final ConcurrentSkipListMap<Long, T> rows = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<UUID, T> index = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, Long> slots = new ConcurrentHashMap<>();
+    // Ids that appear on more than one row; only these need a scan on delete.
+    private final Set<UUID> duplicated = ConcurrentHashMap.newKeySet();
+    private final Map<String, SecondaryIndex<T>> secondary = new HashMap<>();
+    private final Map<String, SortIndex<T>> sorted = new HashMap<>();
+    private long nextSeq;
+
+    /**
+     * A row's place in a sort order: its sort value (null in file order), then its id and
+     * insertion sequence, so every row has a distinct position.
+     */
+    record Position(Comparable<?> value, UUID id, long seq) {
+    }
+
+    private static final Comparator<UUID> BY_ID = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Comparator<Comparable> BY_VALUE = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private static final Comparator<Position> BY_POSITION = (a, b) -> {
+        int c = BY_VALUE.compare(a.value(), b.value());
+        if (c == 0) {
+            c = BY_ID.compare(a.id(), b.id());
+        }
+        return c != 0 ? c : Long.compare(a.seq(), b.seq());
+    };
+
+    EntityStore(Function<T, UUID> idOf) {
+        this(idOf, Map.of(), Map.of());
+    }
+
+    EntityStore(Function<T, UUID> idOf, Map<String, Function<T, UUID>> secondaryKeys,
+                Map<String, Function<T, ? extends Comparable<?>>> sortKeys) {
+        this.idOf = idOf;
+        secondaryKeys.forEach((name, key) -> secondary.put(name, new SecondaryIndex<>(key)));
+        sortKeys.forEach((name, key) -> sorted.put(name, new SortIndex<>(key)));
+    }
+
+    boolean hasIndex(String name) {
+        return secondary.containsKey(name);
+    }
+
+    /**
+     * Rows whose indexed field equals {@code key}, in file order.
+     */
+    List<T> lookup(String name, UUID key) {
+        ConcurrentSkipListSet<Long> seqs = key == null ? null : secondary.get(name).seqs.get(key);
+        if (seqs == null) {
+            return List.of();
+        }
+        List<T> found = new ArrayList<>(seqs.size());
+        for (Long seq : seqs) {
+            T row = rows.get(seq);
+            if (row != null) {
+                found.add(row);
+            }
+        }
+        return found;
+    }
+
+    boolean hasSort(String name) {
+        return sorted.containsKey(name);
+    }
+
+    /**
+     * Up to {@code limit} rows in the named sort order (file order for null), starting after
+     * {@code after} when it is given: O(log n + limit). A file-order position is found again
+     * through its id when the row still exists, since reloads renumber the sequences.
+     */
+    List<Map.Entry<Position, T>> page(String sort, boolean descending, Position after, int limit) {
+        if (sort == null) {
+            NavigableMap<Long, T> byFile = descending ? rows.descendingMap() : rows;
+            if (after != null) {
+                Long seq = after.id() == null ? null : slots.get(after.id());
+                byFile = byFile.tailMap(seq != null ? seq : after.seq(), false);
+            }
+            List<Map.Entry<Position, T>> page = new ArrayList<>(Math.min(limit, 1024));
+            for (Map.Entry<Long, T> e : byFile.entrySet()) {
+                if (page.size() == limit) {
+                    break;
+                }
+                page.add(Map.entry(new Position(null, idOf.apply(e.getValue()), e.getKey()), e.getValue()));
+            }
+            return page;
+        }
+        NavigableMap<Position, T> order = descending ? sorted.get(sort).rows.descendingMap() : sorted.get(sort).rows;
+        if (after != null) {
+            order = order.tailMap(after, false);
+        }
+        List<Map.Entry<Position, T>> page = new ArrayList<>(Math.min(limit, 1024));
+        for (Map.Entry<Position, T> e : order.entrySet()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(e);
+        }
+        return page;
+    }
+
+    T get(UUID id) {
+        return id == null ? null : index.get(id);
+    }
+
+    boolean contains(UUID id) {
+        return id != null && index.containsKey(id);
+    }
+
+    ArrayList<T> list() {
+        return new ArrayList<>(rows.values());
+    }
+
+    Collection<T> values() {
+        return rows.values();
+    }
+
+    int size() {
+        return rows.size();
+    }
+
+    void add(T entity) {
+        if (entity == null) {
+            return; // older builds could write JSON nulls into the array; they are dropped
+        }
+        long seq = nextSeq++;
+        rows.put(seq, entity);
+        index(seq, entity);
+        UUID id = idOf.apply(entity);
+        if (id == null) {
+            return;
+        }
+        if (slots.putIfAbsent(id, seq) == null) {
+            index.put(id, entity);
+        } else {
+            duplicated.add(id);
+        }
+    }
+
+    void addAll(Collection<? extends T> entities) {
+        for (T entity : entities) {
+            add(entity);
+        }
+    }
+
+    /**
+     * Replaces the first row with the given id, keeping its position.
+     * Returns false when no such row exists.
+     */
+    boolean replace(UUID id, T entity) {
+        Long seq = id == null ? null : slots.get(id);
+        if (seq == null) {
+            return false;
+        }
+        unindex(seq, rows.put(seq, entity));
+        index(seq, entity);
+        index.put(id, entity);
+        return true;
+    }
+
+    /**
+     * Removes every row with the given id, like {@code removeIf} on the old lists.
+     */
+    boolean remove(UUID id) {
+        Long seq = id == null ? null : slots.remove(id);
+        if (seq == null) {
+            return false;
+        }
+        unindex(seq, rows.remove(seq));
+        index.remove(id);
+        if (duplicated.remove(id)) {
+            rows.entrySet().removeIf(e -> {
+                if (!id.equals(idOf.apply(e.getValue()))) {
+                    return false;
+                }
+                unindex(e.getKey(), e.getValue());
+                return true;
+            });
+        }
+        return true;
+    }
+
+    private void index(long seq, T entity) {
+        for (SortIndex<T> s : sorted.values()) {
+            s.rows.put(s.position(seq, entity, idOf), entity);
+        }
+        for (SecondaryIndex<T> s : secondary.values()) {
+            UUID key = s.key.apply(entity);
+            if (key != null) {
+                s.seqs.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>()).add(seq);
+            }
+        }
+    }
+
+    private void unindex(long seq, T entity) {
+        if (entity == null) {
+            return;
+        }
+        for (SortIndex<T> s : sorted.values()) {
+            s.rows.remove(s.position(seq, entity, idOf));
+        }
+        for (SecondaryIndex<T> s : secondary.values()) {
+            UUID key = s.key.apply(entity);
+            ConcurrentSkipListSet<Long> seqs = key == null ? null : s.seqs.get(key);
+            if (seqs != null) {
+                seqs.remove(seq);
+                if (seqs.isEmpty()) {
+                    s.seqs.remove(key);
+                }
+            }
+        }
+    }
+
+    private record SecondaryIndex<T>(Function<T, UUID> key, ConcurrentHashMap<UUID, ConcurrentSkipListSet<Long>> seqs) {
+
+        SecondaryIndex(Function<T, UUID> key) {
+            this(key, new ConcurrentHashMap<>());
+        }
+    }
+
+    private record SortIndex<T>(Function<T, ? extends Comparable<?>> key, ConcurrentSkipListMap<Position, T> rows) {
+
+        SortIndex(Function<T, ? extends Comparable<?>> key) {
+            this(key, new ConcurrentSkipListMap<>(BY_POSITION));
+        }
+
+        Position position(long seq, T entity, Function<T, UUID> idOf) {
+            return new Position(key.apply(entity), idOf.apply(entity), seq);
+        }
+    }
+}
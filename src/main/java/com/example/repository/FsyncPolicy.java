@@ -0,0 +1,23 @@
+package com.example.repository;
+
+import java.util.Locale;
+
+/**
+ * When written data is forced to disk ({@code spring.application.fsyncPolicy}).
+ */
+enum FsyncPolicy {
+    /** fsync every commit before the caller returns. */
+    ALWAYS,
+    /** fsync in the background every {@code fsyncIntervalMs}; a crash loses at most that window. */
+    INTERVAL,
+    /** Never fsync; the page cache decides. Survives process crashes, not power loss. */
+    OS;
+
+    static FsyncPolicy parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("spring.application.fsyncPolicy must be always, interval or os, not " + value);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background fsync for the {@code interval} policy: every {@code fsyncIntervalMs} each
+ * repository forces what it has written. Does nothing under {@code always} and {@code os}.
+ */
+@Component
+public class FsyncScheduler {
+
+    private final List<MainRepository<?>> repositories;
+
+    @Value("${spring.application.fsyncIntervalMs:1000}")
+    private long intervalMs;
+
+    private ScheduledExecutorService executor;
+
+    public FsyncScheduler(List<MainRepository<?>> repositories) {
+        this.repositories = repositories;
+    }
+
+    @PostConstruct
+    void start() {
+        if (repositories.stream().noneMatch(MainRepository::isIntervalFsync)) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fsync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::syncAll, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+            syncAll(); // whatever was written since the last tick
+        }
+    }
+
+    public void syncAll() {
+        for (MainRepository<?> repository : repositories) {
+            try {
+                repository.sync();
+            } catch (RuntimeException e) {
+                e.printStackTrace(); // try again on the next tick
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single writer thread that turns many concurrent writes into one flush.
+ * An item that finds nothing else queued is flushed at once, so a write without contention
+ * never waits. When other items are already queued, the writer takes them and keeps
+ * collecting for a window of {@code windowNanos}; everything queued before the window closes
+ * (up to {@code maxBatch} items) is handed to the flusher together. Each caller blocks in
+ * {@link #submit} until the batch containing its item has been flushed.
+ */
+final class GroupCommitWriter<E, R> {
+
+    interface Flusher<E, R> {
+        /** Persists the batch and returns one result per item, in order. */
+        List<R> flush(List<E> batch);
+    }
+
+    private record Pending<E, R>(E item, CompletableFuture<R> result) {
+    }
+
+    private final BlockingQueue<Pending<E, R>> queue = new LinkedBlockingQueue<>();
+    private final Flusher<E, R> flusher;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    GroupCommitWriter(String name, Flusher<E, R> flusher, long windowNanos, int maxBatch) {
+        this(name, flusher, windowNanos, maxBatch, false);
+    }
+
+    /**
+     * With {@code virtual} the writer runs on a virtual thread, like the request threads
+     * that feed it when spring.threads.virtual.enabled is set.
+     */
+    GroupCommitWriter(String name, Flusher<E, R> flusher, long windowNanos, int maxBatch, boolean virtual) {
+        this.flusher = flusher;
+        this.windowNanos = windowNanos;
+        this.maxBatch = Math.max(1, maxBatch);
+        Thread.Builder builder = virtual ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+        this.thread = builder.name(name).start(this::run);
+    }
+
+    R submit(E item) {
+        if (!running) {
+            throw new IllegalStateException("Writer " + thread.getName() + " is closed");
+        }
+        CompletableFuture<R> result = new CompletableFuture<>();
+        Pending<E, R> pending = new Pending<>(item, result);
+        queue.add(pending);
+        // close() may have run since the check above, and the writer may already have drained
+        // the queue and exited. Whoever removes the item owns it: if we do, nobody will flush it.
+        if (!running && queue.remove(pending)) {
+            throw new IllegalStateException("Writer " + thread.getName() + " is closed");
+        }
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for group commit", e);
+        }
+    }
+
+    void close() throws InterruptedException {
+        running = false;
+        thread.interrupt();
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void run() {
+        List<Pending<E, R>> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending<E, R> first = running ? queue.take() : queue.poll();
+                if (first == null) {
+                    break;
+                }
+                batch.add(first);
+                collect(batch);
+            } catch (InterruptedException e) {
+                // close() wakes us up; loop around to drain what is still queued
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(List<Pending<E, R>> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatch - batch.size());
+        if (batch.size() == 1) {
+            return; // no contention: flush now rather than wait out the window
+        }
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatch) {
+            long remaining = deadline - System.nanoTime();
+            Pending<E, R> next = remaining > 0 && running
+                    ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                    : queue.poll();
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<Pending<E, R>> batch) {
+        List<E> items = new ArrayList<>(batch.size());
+        for (Pending<E, R> pending : batch) {
+            items.add(pending.item());
+        }
+        try {
+            List<R> results = flusher.flush(items);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(results.get(i));
+            }
+        } catch (Throwable t) {
+            for (Pending<E, R> pending : batch) {
+                pending.result().completeExceptionally(t);
+            }
+        }
+    }
+}
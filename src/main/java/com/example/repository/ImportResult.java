@@ -0,0 +1,8 @@
+package com.example.repository;
+
+/**
+ * Outcome of a bulk import: lines read, rows stored, rows skipped because their id was
+ * already stored (or repeated earlier in the same import), and the throughput.
+ */
+public record ImportResult(long records, long imported, long duplicates, long millis, double recordsPerSecond) {
+}
@@ -0,0 +1,168 @@
+package com.example.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import com.example.metrics.IoCounter;
+import com.example.metrics.StorageEvent;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The original format: the whole entity set as one JSON array, rewritten on every change
+ * through a temp file and an atomic rename. The file's size/mtime/inode are remembered after each load and write, so edits made
+ * outside the application (mounted docker volume, tests) mark the store stale.
+ */
+class JsonFileStorage<T> implements EntityStorage<T> {
+
+    private final ObjectMapper objectMapper;
+    private final Path file;
+    private final Class<T[]> arrayType;
+    private final FsyncPolicy fsyncPolicy;
+    private final String entity;
+    private final RepositoryMetrics metrics;
+    private final IoCounter io;
+    private volatile FileStamp stamp;
+
+    JsonFileStorage(ObjectMapper objectMapper, Path file, Class<T[]> arrayType, FsyncPolicy fsyncPolicy,
+                    RepositoryMetrics metrics) {
+        this.objectMapper = objectMapper;
+        this.file = file;
+        this.arrayType = arrayType;
+        this.fsyncPolicy = fsyncPolicy;
+        this.entity = arrayType.getComponentType().getSimpleName();
+        this.metrics = metrics;
+        this.io = metrics.file(file);
+    }
+
+    @Override
+    public void load(EntityStore<T> into) throws IOException {
+        FileStamp before = FileStamp.of(file);
+        if (before != null) {
+            byte[] bytes = DurableFiles.read(file, entity);
+            StorageEvent.Parse parse = new StorageEvent.Parse();
+            parse.begin();
+            T[] array = objectMapper.readValue(bytes, arrayType); // Deserialize to array first
+            into.addAll(Arrays.asList(array));
+            parse.finish(entity, array.length, bytes.length);
+            io.read(bytes.length);
+        }
+        stamp = before;
+    }
+
+    /**
+     * Streams the file looking for the first element whose top-level {@code field} is the
+     * string {@code value}. Fields of other elements are skipped without being bound, so
+     * nested orders and products are never materialized; only the matching element is
+     * read, from its byte offset, once the match is known. Returns null when none matches.
+     * The element is re-read through the channel that was scanned, never by path: a write
+     * renamed over the file meanwhile leaves this handle on the file the offset belongs to.
+     */
+    T scanFirst(String field, String value) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        StorageEvent.Parse parse = new StorageEvent.Parse();
+        parse.begin();
+        long rows = 0;
+        JsonParser parser = objectMapper.getFactory().createParser(Channels.newInputStream(channel));
+        try (channel; parser) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return null;
+            }
+            for (JsonToken token = parser.nextToken(); token != null && token != JsonToken.END_ARRAY;
+                 token = parser.nextToken()) {
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren(); // nulls and anything else that is not an entity
+                    continue;
+                }
+                rows++;
+                long start = parser.currentTokenLocation().getByteOffset();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    if (parser.nextToken() == JsonToken.VALUE_STRING && field.equals(name)
+                            && value.equals(parser.getText())) {
+                        return readAt(channel, start);
+                    }
+                    parser.skipChildren();
+                }
+            }
+        } finally {
+            long bytes = parser.currentLocation().getByteOffset();
+            parse.finish(entity, rows, bytes);
+            metrics.scanned(field, rows);
+            io.read(bytes);
+        }
+        return null;
+    }
+
+    private T readAt(FileChannel channel, long offset) throws IOException {
+        channel.position(offset); // the scanning parser has read ahead of the element
+        InputStream in = Channels.newInputStream(channel);
+        // not closed here: closing the stream would close the channel the scan still owns
+        JsonParser parser = objectMapper.getFactory().createParser(in);
+        parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        try (parser) {
+            T row = objectMapper.readerFor(arrayType.getComponentType()).readValue(parser);
+            io.read(parser.currentLocation().getByteOffset());
+            return row;
+        }
+    }
+
+    @Override
+    public void append(EntityStore<T> state, List<Mutation<T>> batch) throws IOException {
+        rewrite(state);
+    }
+
+    @Override
+    public void rewrite(EntityStore<T> state) throws IOException {
+        io.written(DurableFiles.replace(file, out -> objectMapper.writeValue(out, state.values()),
+                fsyncPolicy == FsyncPolicy.ALWAYS, entity, state.size()));
+        stamp = FileStamp.of(file);
+    }
+
+    @Override
+    public void sync() throws IOException {
+        DurableFiles.force(file, entity);
+        DurableFiles.forceDirectory(file.toAbsolutePath().getParent());
+    }
+
+    @Override
+    public boolean isStale() {
+        return !Objects.equals(stamp, FileStamp.of(file));
+    }
+
+    @Override
+    public boolean uniqueIds() {
+        return false;
+    }
+
+    private record FileStamp(long size, FileTime modified, Object fileKey) {
+
+        static FileStamp of(Path path) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                return new FileStamp(attrs.size(), attrs.lastModifiedTime(), attrs.fileKey());
+            } catch (NoSuchFileException e) {
+                return null;
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to stat JSON file", e);
+            }
+        }
+    }
+}
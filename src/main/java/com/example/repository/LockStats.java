@@ -0,0 +1,7 @@
+package com.example.repository;
+
+/**
+ * Contention on one lock stripe: times taken, times a caller had to wait, total wait.
+ */
+public record LockStats(int stripe, long acquisitions, long contended, long waitMicros) {
+}
@@ -0,0 +1,72 @@
+package com.example.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background thread that periodically asks every log-mode repository to compact.
+ * Does nothing in JSON mode.
+ */
+@Component
+public class LogCompactor {
+
+    private final List<MainRepository<?>> repositories;
+
+    @Value("${spring.application.compactionIntervalMs:30000}")
+    private long intervalMs;
+
+    private ScheduledExecutorService executor;
+
+    public LogCompactor(List<MainRepository<?>> repositories) {
+        this.repositories = repositories;
+    }
+
+    @PostConstruct
+    void start() {
+        if (repositories.stream().noneMatch(MainRepository::isLogStorage)) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "log-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::compactAll, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    public void compactAll() {
+        for (MainRepository<?> repository : repositories) {
+            try {
+                repository.compact(false);
+            } catch (RuntimeException e) {
+                e.printStackTrace(); // try again on the next tick
+            }
+        }
+    }
+
+    public List<CompactionStats> getStats() {
+        List<CompactionStats> stats = new ArrayList<>();
+        for (MainRepository<?> repository : repositories) {
+            if (repository.isLogStorage()) {
+                stats.add(repository.getCompactionStats());
+            }
+        }
+        return stats;
+    }
+}
@@ -1,62 +1,883 @@
 package com.example.repository;
 
-import java.io.File;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Repository;
+import org.springframework.web.server.ResponseStatusException;
 
+import com.example.metrics.StorageEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 @Primary
 @Repository
 public abstract class MainRepository<T> {
 
     protected ObjectMapper objectMapper = new ObjectMapper();
-    
+
     protected abstract String getDataPath();
     protected abstract Class<T[]> getArrayType();
+    protected abstract UUID getId(T entity);
+    abstract RecordCodec<T> getCodec();
+
+    // "json" rewrites the whole array on every change; "log" appends to <dataPath>.log.
+    @Value("${spring.application.storageMode:json}")
+    private String storageMode;
+
+    // "json" keeps the data files as JSON arrays; "binary" keeps <dataPath>.bin instead
+    // (see BinaryFileStorage). Only used by the json storage mode.
+    @Value("${spring.application.dataFormat:json}")
+    private String dataFormat;
+
+    // always: fsync every commit; interval: fsync every fsyncIntervalMs (see FsyncScheduler);
+    // os: leave it to the page cache. Writes always go through a temp file and a rename.
+    @Value("${spring.application.fsyncPolicy:always}")
+    private String fsyncPolicy;
+
+    // Log mode only: compact once the log holds this many records, or once it is larger
+    // than compactionLogRatio x the snapshot (ignored below compactionMinLogBytes).
+    @Value("${spring.application.compactionMaxRecords:10000}")
+    private long compactionMaxRecords;
+
+    @Value("${spring.application.compactionLogRatio:1.0}")
+    private double compactionLogRatio;
+
+    @Value("${spring.application.compactionMinLogBytes:65536}")
+    private long compactionMinLogBytes;
+
+    // Group commit: one writer thread per repository gathers the changes queued within
+    // groupCommitWindowMs (at most groupCommitMaxOps of them) and persists them in one write.
+    @Value("${spring.application.groupCommit:true}")
+    private boolean groupCommit;
+
+    @Value("${spring.application.groupCommitWindowMs:2}")
+    private long groupCommitWindowMs;
+
+    @Value("${spring.application.groupCommitMaxOps:256}")
+    private int groupCommitMaxOps;
+
+    // Request threads are virtual: run the group-commit writer on one too. All locking in the
+    // repositories uses ReentrantLock, so a virtual thread blocked on it or on file I/O never
+    // pins its carrier.
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // Read-modify-write of one entity holds the stripe lock picked by its id.
+    @Value("${spring.application.lockStripes:64}")
+    private int lockStripes;
+
+    // false: nothing is kept in memory between calls, as before the resident store. Each
+    // listing and write reads the file again, and findById/findFirst stream it (JSON format only).
+    @Value("${spring.application.residentStore:true}")
+    private boolean residentStore = true;
+
+    // The data is loaded once and then served from memory. The storage decides when the
+    // files changed behind our back (only JSON mode watches for that) and we reload.
+    private volatile EntityStore<T> store;
+    private EntityStorage<T> storage;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private CompactionStats compactionStats;
+    private GroupCommitWriter<List<Mutation<T>>, Integer> writer;
+    private StripedLocks locks;
+    private String entityName;
+    private final Map<String, Function<T, UUID>> secondaryKeys = new LinkedHashMap<>();
+    private final Map<String, Function<T, ? extends Comparable<?>>> sortKeys = new LinkedHashMap<>();
+    private final Map<String, Class<?>> sortTypes = new LinkedHashMap<>();
+    // Bumped after every change to the rows becomes visible (writes, transactions, reloads).
+    private final AtomicLong version = new AtomicLong();
+    // Version of the last full load or rewrite, and of each row changed since then.
+    private volatile long loadedVersion;
+    private final Map<UUID, Long> rowVersions = new ConcurrentHashMap<>();
+    // Lines per parse task of importNdjson.
+    private static final int IMPORT_CHUNK_LINES = 1024;
+
+    // Latency per operation, rows scanned per lookup and bytes per file; the storages record their I/O here.
+    final RepositoryMetrics metrics = new RepositoryMetrics();
 
     public MainRepository(){
 
     }
+
+    @PostConstruct
+    void open() {
+        Path file = Path.of(getDataPath());
+        storage = createStorage(file, FsyncPolicy.parse(fsyncPolicy));
+        if (!(storage instanceof JsonFileStorage)) {
+            residentStore = true; // the other storages keep file state that a reload would reset
+        }
+        entityName = getArrayType().getComponentType().getSimpleName();
+        compactionStats = new CompactionStats(entityName);
+        locks = new StripedLocks(lockStripes, entityName);
+        current();
+        if (groupCommit) {
+            writer = new GroupCommitWriter<>(entityName + "-writer", this::applyAndPersist,
+                    TimeUnit.MILLISECONDS.toNanos(groupCommitWindowMs), groupCommitMaxOps, virtualThreads);
+        }
+    }
+
+    /**
+     * Picks the storage for the configured storage mode. Repositories with an engine of
+     * their own override this.
+     */
+    EntityStorage<T> createStorage(Path file, FsyncPolicy policy) {
+        if ("log".equalsIgnoreCase(storageMode)) {
+            return new AppendLogStorage<>(objectMapper, file, getArrayType(), policy, metrics);
+        }
+        if ("binary".equalsIgnoreCase(dataFormat)) {
+            return new BinaryFileStorage<>(objectMapper, file, getArrayType(), getCodec(), policy, metrics);
+        }
+        return new JsonFileStorage<>(objectMapper, file, getArrayType(), policy, metrics);
+    }
+
+    @PreDestroy
+    void close() throws IOException, InterruptedException {
+        if (writer != null) {
+            writer.close();
+        }
+        storage.close();
+    }
+
     public ArrayList<T> findAll() {
+        long started = System.nanoTime();
         try {
-            File file = new File(getDataPath());
-            if (!file.exists()) {
-                return new ArrayList<>();
+            return current().list();
+        } finally {
+            metrics.timed("findAll", started);
+        }
+    }
+
+    /**
+     * A stored row as readers see it. Stored rows may leave out what can be looked up
+     * elsewhere; repositories that do so (see CartRepository) override this to fill it in.
+     * Null stays null.
+     */
+    T view(T row) {
+        return row;
+    }
+
+    /**
+     * Read-only live view of the rows in file order. Iterating it copies nothing, unlike
+     * {@link #findAll()}; it is weakly consistent, so rows changed during the iteration may
+     * or may not be seen.
+     */
+    public Collection<T> rows() {
+        return Collections.unmodifiableCollection(current().values());
+    }
+
+    /**
+     * O(1) lookup through the primary index. Returns the first row with this id, or null.
+     */
+    public T findById(UUID id) {
+        if (!residentStore) {
+            return findFirst("id", id, this::getId);
+        }
+        long started = System.nanoTime();
+        try {
+            T found = current().get(id);
+            metrics.scanned("id", found == null ? 0 : 1);
+            return found;
+        } finally {
+            metrics.timed("findById", started);
+        }
+    }
+
+    /**
+     * First row whose {@code field} (read through {@code getter}) equals {@code value}, or null.
+     * Scans the resident rows and stops at the first match; without a resident store the JSON
+     * file is streamed instead of being loaded, so memory stays flat however large it is.
+     */
+    protected T findFirst(String field, UUID value, Function<T, UUID> getter) {
+        if (value == null) {
+            return null;
+        }
+        long started = System.nanoTime();
+        try {
+            if (!residentStore && storage instanceof JsonFileStorage<T> json) {
+                return json.scanFirst(field, value.toString()); // records the rows it scanned
+            }
+            EntityStore<T> s = current();
+            if (s.hasIndex(field)) {
+                List<T> found = s.lookup(field, value);
+                metrics.scanned(field, found.size());
+                return found.isEmpty() ? null : found.get(0);
+            }
+            long rows = 0;
+            try {
+                for (T row : s.values()) {
+                    rows++;
+                    if (value.equals(getter.apply(row))) {
+                        return row;
+                    }
+                }
+                return null;
+            } finally {
+                metrics.scanned(field, rows);
             }
-            T[] array = objectMapper.readValue(file, getArrayType()); // Deserialize to array first
-            return new ArrayList<>(Arrays.asList(array));
-            // return objectMapper.readValue(file, new TypeReference<ArrayList<T>>(){});
         } catch (IOException e) {
             throw new RuntimeException("Failed to read from JSON file", e);
+        } finally {
+            metrics.timed("findFirst", started);
+        }
+    }
+
+    /**
+     * Every row whose {@code field} equals {@code value}, in file order. Served from the
+     * secondary index when one was declared with {@link #indexBy}, otherwise by a scan.
+     */
+    protected List<T> findAllBy(String field, UUID value, Function<T, UUID> getter) {
+        if (value == null) {
+            return new ArrayList<>();
+        }
+        long started = System.nanoTime();
+        try {
+            EntityStore<T> s = current();
+            if (s.hasIndex(field)) {
+                List<T> found = new ArrayList<>(s.lookup(field, value));
+                metrics.scanned(field, found.size());
+                return found;
+            }
+            List<T> found = new ArrayList<>();
+            for (T row : s.values()) {
+                if (value.equals(getter.apply(row))) {
+                    found.add(row);
+                }
+            }
+            metrics.scanned(field, s.size());
+            return found;
+        } finally {
+            metrics.timed("findAllBy", started);
+        }
+    }
+
+    /**
+     * Declares a secondary index on another UUID field, kept up to date by every write.
+     * Call from the subclass constructor; {@link #findFirst} and {@link #findAllBy} use it
+     * when they are given the same field name.
+     */
+    protected void indexBy(String field, Function<T, UUID> key) {
+        secondaryKeys.put(field, key);
+    }
+
+    /**
+     * Declares a sort order for {@link #findPage}, kept as a sorted index that every write
+     * updates. Call from the subclass constructor.
+     */
+    protected <K extends Comparable<? super K>> void sortBy(String name, Class<K> type, Function<T, K> key) {
+        sortKeys.put(name, key);
+        sortTypes.put(name, type);
+    }
+
+    /**
+     * Keyset paging: up to {@code limit} rows after the one the cursor {@code after} points
+     * at (from the start without one), in file order or by a key declared with
+     * {@link #sortBy} ({@code "-price"} for descending). Costs O(log n + limit) however deep
+     * the page is, and rows written between two pages are neither skipped nor repeated
+     * unless their sort value moved across the cursor.
+     */
+    public Page<T> findPage(String sort, String after, int limit) {
+        if (limit <= 0 || limit > Page.MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + Page.MAX_LIMIT);
+        }
+        String order = sort == null || sort.isEmpty() ? null : sort;
+        boolean descending = order != null && order.startsWith("-");
+        String key = descending ? order.substring(1) : order;
+        if (key != null && !sortKeys.containsKey(key)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    entityName + " can be sorted by " + String.join(", ", sortKeys.keySet()) + " only");
+        }
+        long started = System.nanoTime();
+        try {
+            EntityStore.Position from = after == null || after.isEmpty() ? null : decodeCursor(order, key, after);
+            List<Map.Entry<EntityStore.Position, T>> rows = current().page(key, descending, from, limit + 1);
+            int size = Math.min(rows.size(), limit);
+            List<T> items = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                items.add(rows.get(i).getValue());
+            }
+            String next = rows.size() > limit ? encodeCursor(order, rows.get(limit - 1).getKey()) : null;
+            return new Page<>(items, next);
+        } finally {
+            metrics.timed("findPage", started);
+        }
+    }
+
+    // A cursor is the URL-safe Base64 of [order, sort value, id, seq].
+    private String encodeCursor(String order, EntityStore.Position position) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(
+                    Arrays.asList(order, position.value(), position.id(), position.seq()));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private EntityStore.Position decodeCursor(String order, String key, String cursor) {
+        try {
+            JsonNode fields = objectMapper.readTree(Base64.getUrlDecoder().decode(cursor));
+            if (!fields.isArray() || fields.size() != 4 || !Objects.equals(order, fields.get(0).textValue())) {
+                throw new IllegalArgumentException("cursor is for another order");
+            }
+            Comparable<?> value = key == null || fields.get(1).isNull() ? null
+                    : (Comparable<?>) objectMapper.treeToValue(fields.get(1), sortTypes.get(key));
+            UUID id = fields.get(2).isNull() ? null : UUID.fromString(fields.get(2).asText());
+            return new EntityStore.Position(value, id, fields.get(3).asLong());
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
         }
     }
 
     public void saveAll(ArrayList<T> data) {
+        long started = System.nanoTime();
+        lockWrites();
         try {
-            objectMapper.writeValue(new File(getDataPath()), data);
+            EntityStore<T> fresh = newStore();
+            fresh.addAll(data);
+            store = residentStore ? fresh : null;
+            reloaded();
+            storage.rewrite(fresh);
         } catch (IOException e) {
+            store = null;
             throw new RuntimeException("Failed to write to JSON file", e);
+        } finally {
+            writeLock.unlock();
+            metrics.timed("saveAll", started);
         }
     }
 
     public void save(T data){
-        ArrayList<T> allData = findAll();
-        allData.add(data);
-        saveAll(allData);
+        if (data == null) {
+            return; // nothing to store
+        }
+        long started = System.nanoTime();
+        try {
+            commit(Mutation.add(getId(data), copyOf(data)));
+        } finally {
+            metrics.timed("save", started);
+        }
     }
 
+    /**
+     * Replaces the stored row that has the same id as {@code data}. The instance is
+     * stored as-is, so pass a copy (see {@link #copyOf}) and don't touch it afterwards.
+     * Returns false (and writes nothing) when there is no such row.
+     */
+    public boolean update(T data) {
+        long started = System.nanoTime();
+        try {
+            return commit(Mutation.put(getId(data), data));
+        } finally {
+            metrics.timed("update", started);
+        }
+    }
 
+    /**
+     * Like {@link #update} for several rows, persisted as one batch. Returns how many matched.
+     */
+    public int updateAll(List<T> data) {
+        List<Mutation<T>> batch = new ArrayList<>(data.size());
+        for (T entity : data) {
+            batch.add(Mutation.put(getId(entity), entity));
+        }
+        long started = System.nanoTime();
+        try {
+            return commit(batch);
+        } finally {
+            metrics.timed("updateAll", started);
+        }
+    }
+
+    /**
+     * Removes every row with this id. Returns false (and writes nothing) when none matched.
+     */
+    public boolean deleteById(UUID id) {
+        long started = System.nanoTime();
+        try {
+            return commit(Mutation.delete(id));
+        } finally {
+            metrics.timed("deleteById", started);
+        }
+    }
 
     public void overrideData(ArrayList<T> data) {
         saveAll(data);
     }
 
-    
+    /**
+     * Writes the current rows as a JSON array, whatever the storage format.
+     */
+    public void exportJson(Path target) {
+        ArrayList<T> rows = findAll();
+        try {
+            DurableFiles.replace(target, out -> objectMapper.writeValue(out, rows), true);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write to JSON file", e);
+        }
+    }
 
+    /**
+     * Writes every row to {@code out} as NDJSON (one JSON object per line) and returns the
+     * number of rows. Rows are streamed from the live view ({@link #rows()}) through one
+     * generator, so nothing is copied or collected whatever the size, and writers are not
+     * blocked; a row changed during the export appears in its old or new state. {@code out}
+     * is flushed but left open.
+     */
+    public long exportNdjson(OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        ObjectWriter writer = objectMapper.writerFor(getEntityType()).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null); // the newline after each row separates them
+            for (T row : rows()) {
+                writer.writeValue(generator, row);
+                generator.writeRaw('\n');
+                count++;
+            }
+        } finally {
+            metrics.timed("exportNdjson", started);
+        }
+        return count;
+    }
+
+    /**
+     * Adds the rows of an NDJSON stream (one JSON object per line, blank lines ignored) with a
+     * single commit. Lines are read in chunks of {@value #IMPORT_CHUNK_LINES} that are parsed in
+     * parallel on the common fork-join pool while reading goes on. Rows whose id is already
+     * stored, or appeared earlier in the stream, are skipped. A line that is not a valid row
+     * or has no id rejects the whole import (400), and nothing is written.
+     */
+    public ImportResult importNdjson(InputStream in) throws IOException {
+        long started = System.nanoTime();
+        ObjectReader reader = objectMapper.readerFor(getEntityType());
+        List<ForkJoinTask<List<T>>> chunks = new ArrayList<>();
+        long records = 0;
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            List<String> chunk = new ArrayList<>(IMPORT_CHUNK_LINES);
+            long firstLine = 1;
+            for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+                chunk.add(line);
+                if (chunk.size() == IMPORT_CHUNK_LINES) {
+                    chunks.add(ForkJoinPool.commonPool().submit(parseChunk(reader, chunk, firstLine)));
+                    firstLine += chunk.size();
+                    chunk = new ArrayList<>(IMPORT_CHUNK_LINES);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                chunks.add(ForkJoinPool.commonPool().submit(parseChunk(reader, chunk, firstLine)));
+            }
+        }
+
+        // Ids repeated in the stream are dropped here; ids already stored are dropped when the
+        // batch is applied under the write lock, so a concurrent write of the same id can't slip in.
+        Set<UUID> seen = new HashSet<>();
+        List<Mutation<T>> batch = new ArrayList<>();
+        for (ForkJoinTask<List<T>> chunk : chunks) {
+            for (T row : joinChunk(chunk)) {
+                records++;
+                UUID id = getId(row);
+                if (seen.add(id)) {
+                    batch.add(Mutation.addIfAbsent(id, row));
+                }
+            }
+        }
+        int imported = batch.isEmpty() ? 0 : commit(batch);
+        metrics.timed("importNdjson", started);
+        long nanos = Math.max(1, System.nanoTime() - started);
+        return new ImportResult(records, imported, records - imported, TimeUnit.NANOSECONDS.toMillis(nanos),
+                records * 1e9 / nanos);
+    }
 
+    private Callable<List<T>> parseChunk(ObjectReader reader, List<String> chunk, long firstLine) {
+        return () -> {
+            List<T> rows = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                String line = chunk.get(i);
+                if (line.isBlank()) {
+                    continue;
+                }
+                T row;
+                try {
+                    row = reader.readValue(line);
+                } catch (JsonProcessingException e) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Line " + (firstLine + i) + " is not a valid " + entityName + ": " + e.getOriginalMessage());
+                }
+                if (row == null || getId(row) == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Line " + (firstLine + i) + " has no id");
+                }
+                rows.add(row);
+            }
+            return rows;
+        };
+    }
+
+    private List<T> joinChunk(ForkJoinTask<List<T>> chunk) {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Replaces all rows with the contents of a JSON array file.
+     */
+    public void importJson(Path source) {
+        try {
+            saveAll(new ArrayList<>(Arrays.asList(objectMapper.readValue(source.toFile(), getArrayType()))));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read from JSON file", e);
+        }
+    }
+
+    /**
+     * Log mode: folds the log into a fresh snapshot when the configured trigger is hit (or
+     * always, with {@code force}). Rows are captured under the write lock, serialized without
+     * it, and the snapshot is swapped in under the lock again; readers are never blocked.
+     * Returns true when a compaction ran.
+     */
+    public boolean compact(boolean force) {
+        if (!(storage instanceof AppendLogStorage<T> log)) {
+            return false;
+        }
+        long started = System.nanoTime();
+        ArrayList<T> rows;
+        AppendLogStorage.Mark mark;
+        lockWrites();
+        try {
+            if (!force && !log.needsCompaction(compactionMaxRecords, compactionLogRatio, compactionMinLogBytes)) {
+                compactionStats.recordSizes(log.getLogRecords(), log.logBytes(), log.snapshotBytes());
+                return false;
+            }
+            rows = current().list();
+            mark = log.mark();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to inspect log file", e);
+        } finally {
+            writeLock.unlock();
+        }
+        try {
+            Path snapshot = log.writeSnapshot(rows);
+            lockWrites();
+            try {
+                long reclaimed = log.install(snapshot, mark);
+                if (reclaimed < 0) {
+                    return false;
+                }
+                compactionStats.recordRun((System.nanoTime() - started) / 1_000_000, reclaimed);
+                compactionStats.recordSizes(log.getLogRecords(), log.logBytes(), log.snapshotBytes());
+                return true;
+            } finally {
+                writeLock.unlock();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to compact log file", e);
+        }
+    }
+
+    /**
+     * Forces everything written so far to disk. Called periodically under the interval policy.
+     * Holds the write lock like every other storage call, so a log install or a rewrite
+     * cannot swap the file out from under the fsync.
+     */
+    public void sync() {
+        lockWrites();
+        try {
+            storage.sync();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to sync JSON file", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean isIntervalFsync() {
+        return FsyncPolicy.parse(fsyncPolicy) == FsyncPolicy.INTERVAL;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    /**
+     * Contention per lock stripe, for stripes that have been used at least once.
+     */
+    public List<LockStats> getLockStats() {
+        return locks.stats();
+    }
+
+    public CompactionStats getCompactionStats() {
+        return compactionStats;
+    }
+
+    public boolean isLogStorage() {
+        return storage instanceof AppendLogStorage;
+    }
+
+    /**
+     * A number that changes whenever the rows may have changed: after every write, applied
+     * transaction change and reload (including one triggered by another process editing the
+     * file). Data read after seeing version v is at least as new as v, so anything derived
+     * from it can be reused while the version stays the same. It starts over on restart.
+     */
+    public long getVersion() {
+        current();
+        return version.get();
+    }
+
+    /**
+     * Like {@link #getVersion()}, for one row: changes whenever the row with this id may have
+     * changed, but not when other rows do. Also moves on every full reload.
+     */
+    public long getVersion(UUID id) {
+        current();
+        Long changed = rowVersions.get(id);
+        long loaded = loadedVersion; // read after the map: a reload sets it before clearing the map
+        return changed == null ? loaded : Math.max(changed, loaded);
+    }
+
+    public RepositoryMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Read-modify-write of one entity. Holds the stripe lock for {@code id}, so concurrent
+     * changes to the same entity are serialized and cannot lose each other's updates,
+     * while changes to other entities proceed in parallel. {@code change} gets a private
+     * copy and returns false to leave the row untouched. Returns the resulting row, or
+     * null when no row has this id.
+     */
+    protected T modify(UUID id, Predicate<T> change) {
+        return locks.withLock(id, () -> {
+            T current = findById(id);
+            if (current == null) {
+                return null;
+            }
+            T copy = copyOf(current);
+            if (!change.test(copy)) {
+                return current;
+            }
+            update(copy);
+            return copy;
+        });
+    }
+
+    /**
+     * Runs {@code action} holding the stripe locks of all the given ids.
+     */
+    protected <R> R withLocks(Collection<UUID> ids, Supplier<R> action) {
+        return locks.withLocks(ids, action);
+    }
+
+    /**
+     * Deep copy through Jackson. Entities handed out by the store are shared between
+     * requests, so repositories copy before mutating and never store the caller's instance.
+     */
+    @SuppressWarnings("unchecked")
+    protected T copyOf(T entity) {
+        return objectMapper.convertValue(entity, (Class<T>) getArrayType().getComponentType());
+    }
+
+    private boolean commit(Mutation<T> mutation) {
+        return commit(List.of(mutation)) == 1;
+    }
+
+    /**
+     * Applies and persists one caller's changes, through the group-commit writer when it is
+     * enabled. Returns how many of the mutations matched something.
+     */
+    private int commit(List<Mutation<T>> batch) {
+        if (writer != null) {
+            return writer.submit(batch);
+        }
+        return applyAndPersist(List.of(batch)).get(0);
+    }
+
+    /**
+     * Applies several callers' changes and persists everything that took effect with a
+     * single storage write.
+     */
+    private List<Integer> applyAndPersist(List<List<Mutation<T>>> groups) {
+        lockWrites();
+        try {
+            EntityStore<T> s = current();
+            boolean uniqueIds = storage.uniqueIds();
+            List<Mutation<T>> applied = new ArrayList<>();
+            List<Integer> counts = new ArrayList<>(groups.size());
+            for (List<Mutation<T>> group : groups) {
+                int count = 0;
+                for (Mutation<T> mutation : group) {
+                    if (mutation.apply(s, uniqueIds)) {
+                        applied.add(mutation);
+                        count++;
+                    }
+                }
+                counts.add(count);
+            }
+            if (!applied.isEmpty()) {
+                changed(applied);
+                storage.append(s, applied);
+            }
+            return counts;
+        } catch (IOException e) {
+            // Memory may now be ahead of the file; drop it so the next read reloads from disk.
+            store = null;
+            throw new RuntimeException("Failed to write to JSON file", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // ---- Unit of work (see TransactionManager); callers hold lockWrites() around these ----
+
+    /** Takes the write lock; a wait for it is reported as a {@link StorageEvent.LockWait}. */
+    void lockWrites() {
+        if (writeLock.tryLock()) {
+            return;
+        }
+        StorageEvent.LockWait wait = new StorageEvent.LockWait();
+        wait.begin();
+        writeLock.lock();
+        wait.finish(entityName, 0, 0);
+    }
+
+    void unlockWrites() {
+        writeLock.unlock();
+    }
+
+    /** Applies a staged change to the store returned by {@link #current()}; false if it matched nothing. */
+    boolean applyStaged(EntityStore<T> s, Mutation<T> mutation) {
+        if (mutation.apply(s, storage.uniqueIds())) {
+            changed(List.of(mutation));
+            return true;
+        }
+        return false;
+    }
+
+    /** Persists the changes a transaction applied to {@code s}: one storage write. */
+    void persistStaged(EntityStore<T> s, List<Mutation<T>> applied) throws IOException {
+        storage.append(s, applied);
+    }
+
+    /** Drops the resident rows so the next read reloads them from disk. */
+    void invalidate() {
+        store = null;
+    }
+
+    /**
+     * Re-applies journalled changes after a crash. Replay is idempotent (an ADD that is
+     * already there replaces it), so changes that did reach the file are harmless.
+     */
+    void recover(List<Mutation<T>> changes) throws IOException {
+        lockWrites();
+        try {
+            store = null;
+            EntityStore<T> s = current();
+            for (Mutation<T> mutation : changes) {
+                mutation.replay(s);
+            }
+            reloaded();
+            storage.rewrite(s);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Called with the write lock held, after the change is visible in the store.
+    private void changed(List<Mutation<T>> applied) {
+        long v = version.incrementAndGet();
+        for (Mutation<T> mutation : applied) {
+            if (mutation.getId() != null) { // rows without an id can't be asked for
+                rowVersions.put(mutation.getId(), v);
+            }
+        }
+    }
+
+    // Called with the write lock held, after a load or rewrite replaced every row.
+    private void reloaded() {
+        loadedVersion = version.incrementAndGet();
+        rowVersions.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    Class<T> getEntityType() {
+        return (Class<T>) getArrayType().getComponentType();
+    }
+
+    private EntityStore<T> newStore() {
+        return new EntityStore<>(this::getId, secondaryKeys, sortKeys);
+    }
+
+    EntityStore<T> current() {
+        EntityStore<T> s = store;
+        if (s != null && !storage.isStale()) {
+            return s;
+        }
+        lockWrites();
+        try {
+            s = store;
+            if (s == null || storage.isStale()) {
+                long started = System.nanoTime();
+                s = newStore();
+                storage.load(s);
+                metrics.timed("load", started);
+                if (residentStore) {
+                    store = s;
+                }
+                reloaded();
+            }
+            return s;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read from JSON file", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
 }
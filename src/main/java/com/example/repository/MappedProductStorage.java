@@ -0,0 +1,366 @@
+package com.example.repository;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.example.metrics.IoCounter;
+import com.example.metrics.StorageEvent;
+import com.example.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Product storage engine backed by two memory-mapped files next to products.json:
+ * <ul>
+ *   <li>{@code <dataPath>.records}: a 32-byte header followed by fixed 40-byte slots
+ *       (id as two longs, price as a double, name offset and length, flags);</li>
+ *   <li>{@code <dataPath>.names}: the string region holding UTF-8 names back to back.</li>
+ * </ul>
+ * A price change (applyDiscount, updateProduct) is one {@code putDouble} into the mapped slot:
+ * no parsing, no serialization, no garbage. A new name is appended to the string region and the
+ * slot is pointed at it. Deleted slots and replaced names are only reclaimed by a full rewrite,
+ * which a batch triggers itself when its names would push the string region past the 2 GiB a
+ * mapping (and the int offsets in the slots) can address.
+ * The first start imports products.json; after that the JSON file is no longer written.
+ */
+class MappedProductStorage implements EntityStorage<Product> {
+
+    private static final int MAGIC = 0x50524F44; // "PROD"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int SLOT_BYTES = 40;
+    private static final long MAX_NAME_BYTES = Integer.MAX_VALUE;
+
+    // header
+    private static final int SLOTS_USED = 8;
+    private static final int NAMES_USED = 16;
+
+    // slot
+    private static final int MSB = 0;
+    private static final int LSB = 8;
+    private static final int PRICE = 16;
+    private static final int NAME_OFFSET = 24;
+    private static final int NAME_LENGTH = 28;
+    private static final int FLAGS = 32;
+
+    private static final String ENTITY = "Product";
+
+    private static final int LIVE = 1;
+    private static final int HAS_ID = 2;
+
+    private final ObjectMapper objectMapper;
+    private final Path jsonFile;
+    private final Path recordsFile;
+    private final Path namesFile;
+    private final FsyncPolicy fsyncPolicy;
+    private final IoCounter recordsIo;
+    private final IoCounter namesIo;
+    // MAX_NAME_BYTES outside of tests, which lower it to exercise the rewrite.
+    private long nameLimit = MAX_NAME_BYTES;
+
+    private FileChannel recordsChannel;
+    private FileChannel namesChannel;
+    private MappedByteBuffer records;
+    private MappedByteBuffer names;
+    private int slotsUsed;
+    private long namesUsed;
+    // Slot of every live product, so a change to an existing product goes straight to its slot.
+    private final Map<UUID, Integer> slots = new HashMap<>();
+
+    MappedProductStorage(ObjectMapper objectMapper, Path jsonFile, FsyncPolicy fsyncPolicy, RepositoryMetrics metrics) {
+        this.objectMapper = objectMapper;
+        this.jsonFile = jsonFile;
+        this.recordsFile = jsonFile.resolveSibling(jsonFile.getFileName() + ".records");
+        this.namesFile = jsonFile.resolveSibling(jsonFile.getFileName() + ".names");
+        this.fsyncPolicy = fsyncPolicy;
+        this.recordsIo = metrics.file(recordsFile);
+        this.namesIo = metrics.file(namesFile);
+    }
+
+    @Override
+    public void load(EntityStore<Product> into) throws IOException {
+        if (!Files.exists(recordsFile)) {
+            EntityStore<Product> imported = new EntityStore<>(Product::getId);
+            if (Files.exists(jsonFile)) {
+                imported.addAll(Arrays.asList(objectMapper.readValue(jsonFile.toFile(), Product[].class)));
+            }
+            rewrite(imported);
+        } else if (records == null) {
+            map(Files.size(recordsFile), Files.size(namesFile));
+        }
+        if (records.getInt(0) != MAGIC || records.getInt(4) != VERSION) {
+            throw new IOException(recordsFile + " is not a version " + VERSION + " product records file");
+        }
+        StorageEvent.Parse parse = new StorageEvent.Parse();
+        parse.begin();
+        slotsUsed = records.getInt(SLOTS_USED);
+        namesUsed = records.getLong(NAMES_USED);
+        recordsIo.read(HEADER_BYTES + (long) SLOT_BYTES * slotsUsed);
+        namesIo.read(namesUsed);
+        slots.clear();
+        for (int slot = 0; slot < slotsUsed; slot++) {
+            int base = HEADER_BYTES + slot * SLOT_BYTES;
+            int flags = records.getInt(base + FLAGS);
+            if ((flags & LIVE) == 0) {
+                continue;
+            }
+            UUID id = (flags & HAS_ID) != 0 ? new UUID(records.getLong(base + MSB), records.getLong(base + LSB)) : null;
+            into.add(new Product(id, readName(base), records.getDouble(base + PRICE)));
+            if (id != null) {
+                slots.putIfAbsent(id, slot);
+            }
+        }
+        parse.finish(ENTITY, slots.size(), HEADER_BYTES + (long) SLOT_BYTES * slotsUsed + namesUsed);
+    }
+
+    @Override
+    public void append(EntityStore<Product> state, List<Mutation<Product>> batch) throws IOException {
+        if (namesUsed + nameBytes(batch) > nameLimit) {
+            rewrite(state); // state already holds the batch; the rewrite keeps only live names
+            return;
+        }
+        StorageEvent.FileWrite write = new StorageEvent.FileWrite();
+        write.begin();
+        long namesBefore = namesUsed;
+        long recordBytes = Integer.BYTES + Long.BYTES; // header counters
+        for (Mutation<Product> mutation : batch) {
+            Integer slot = mutation.getId() == null ? null : slots.get(mutation.getId());
+            if (mutation.getOp() == Mutation.Op.DELETE) {
+                if (slot != null) {
+                    int base = HEADER_BYTES + slot * SLOT_BYTES;
+                    records.putInt(base + FLAGS, records.getInt(base + FLAGS) & ~LIVE);
+                    slots.remove(mutation.getId());
+                    recordBytes += Integer.BYTES;
+                }
+            } else if (slot != null) {
+                recordBytes += overwrite(slot, mutation.getData());
+            } else {
+                recordBytes += SLOT_BYTES;
+                slot = allocate(mutation.getData());
+                if (mutation.getId() != null) {
+                    slots.put(mutation.getId(), slot);
+                }
+            }
+        }
+        records.putInt(SLOTS_USED, slotsUsed);
+        records.putLong(NAMES_USED, namesUsed);
+        write.finish(ENTITY, batch.size(), recordBytes + namesUsed - namesBefore);
+        recordsIo.written(recordBytes);
+        if (namesUsed > namesBefore) {
+            namesIo.written(namesUsed - namesBefore);
+        }
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            sync();
+        }
+    }
+
+    /**
+     * Lays the files out again from {@code state}, dropping deleted slots and unused names.
+     * The new layout is built in tmp files; if anything fails before both are renamed into
+     * place, the mappings go back to the real files so nothing reads or appends to the tmp ones.
+     */
+    @Override
+    public void rewrite(EntityStore<Product> state) throws IOException {
+        Path recordsTmp = recordsFile.resolveSibling(recordsFile.getFileName() + ".tmp");
+        Path namesTmp = namesFile.resolveSibling(namesFile.getFileName() + ".tmp");
+        try {
+            close();
+            Files.deleteIfExists(recordsTmp);
+            Files.deleteIfExists(namesTmp);
+            recordsChannel = open(recordsTmp);
+            namesChannel = open(namesTmp);
+            records = null;
+            names = null;
+            slotsUsed = 0;
+            namesUsed = 0;
+            slots.clear();
+            remap(capacityFor(state.size()), Math.min(nameLimit, 64L * Math.max(16, state.size())));
+            StorageEvent.FileWrite write = new StorageEvent.FileWrite();
+            write.begin();
+            records.putInt(0, MAGIC);
+            records.putInt(4, VERSION);
+            for (Product product : state.values()) {
+                int slot = allocate(product);
+                if (product.getId() != null) {
+                    slots.putIfAbsent(product.getId(), slot);
+                }
+            }
+            records.putInt(SLOTS_USED, slotsUsed);
+            records.putLong(NAMES_USED, namesUsed);
+            write.finish(ENTITY, slotsUsed, HEADER_BYTES + (long) SLOT_BYTES * slotsUsed + namesUsed);
+            recordsIo.written(HEADER_BYTES + (long) SLOT_BYTES * slotsUsed);
+            namesIo.written(namesUsed);
+            boolean force = fsyncPolicy != FsyncPolicy.OS;
+            if (force) {
+                sync();
+            }
+            // Names first: a records file never points past the end of the names file it is paired with.
+            DurableFiles.move(namesTmp, namesFile, force);
+            DurableFiles.move(recordsTmp, recordsFile, force);
+        } catch (IOException | RuntimeException e) {
+            try {
+                restore(recordsTmp, namesTmp);
+            } catch (IOException | RuntimeException restoreFailure) {
+                e.addSuppressed(restoreFailure);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drops a failed rewrite: maps the real files again and re-reads their counters and slots.
+     * Without a records file yet (a failed first import) nothing is mapped and load imports again.
+     */
+    private void restore(Path recordsTmp, Path namesTmp) throws IOException {
+        if (recordsChannel != null) {
+            recordsChannel.close();
+        }
+        if (namesChannel != null) {
+            namesChannel.close();
+        }
+        recordsChannel = null;
+        namesChannel = null;
+        records = null;
+        names = null;
+        Files.deleteIfExists(recordsTmp);
+        Files.deleteIfExists(namesTmp);
+        if (Files.exists(recordsFile)) {
+            load(new EntityStore<>(Product::getId)); // the rows are the repository's to reload
+        }
+    }
+
+    @Override
+    public void sync() throws IOException {
+        if (records != null) {
+            StorageEvent.Fsync fsync = new StorageEvent.Fsync();
+            fsync.begin();
+            records.force();
+            names.force();
+            fsync.finish(ENTITY, slotsUsed, HEADER_BYTES + (long) SLOT_BYTES * slotsUsed + namesUsed);
+        }
+    }
+
+    @Override
+    public boolean isStale() {
+        return false; // only this process writes the mapped files
+    }
+
+    @Override
+    public boolean uniqueIds() {
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (recordsChannel != null) {
+            recordsChannel.close();
+            namesChannel.close();
+        }
+    }
+
+    private void map(long recordBytes, long nameBytes) throws IOException {
+        close();
+        recordsChannel = open(recordsFile);
+        namesChannel = open(namesFile);
+        records = null;
+        names = null;
+        remap(recordBytes, nameBytes);
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private void remap(long recordBytes, long nameBytes) throws IOException {
+        if (records == null || recordBytes > records.capacity()) {
+            records = recordsChannel.map(FileChannel.MapMode.READ_WRITE, 0, recordBytes);
+        }
+        if (names == null || nameBytes > names.capacity()) {
+            names = namesChannel.map(FileChannel.MapMode.READ_WRITE, 0, nameBytes);
+        }
+    }
+
+    /** Upper bound of what the batch appends to the string region. */
+    private static long nameBytes(List<Mutation<Product>> batch) {
+        long bytes = 0;
+        for (Mutation<Product> mutation : batch) {
+            if (mutation.getOp() != Mutation.Op.DELETE && mutation.getData().getName() != null) {
+                bytes += mutation.getData().getName().getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return bytes;
+    }
+
+    private static long capacityFor(int products) {
+        return HEADER_BYTES + (long) SLOT_BYTES * Math.max(64, products * 2L);
+    }
+
+    private int allocate(Product product) throws IOException {
+        int slot = slotsUsed;
+        long needed = HEADER_BYTES + (long) SLOT_BYTES * (slot + 1);
+        if (needed > records.capacity()) {
+            remap(capacityFor(slot + 1), names.capacity());
+        }
+        int base = HEADER_BYTES + slot * SLOT_BYTES;
+        UUID id = product.getId();
+        records.putLong(base + MSB, id == null ? 0 : id.getMostSignificantBits());
+        records.putLong(base + LSB, id == null ? 0 : id.getLeastSignificantBits());
+        records.putDouble(base + PRICE, product.getPrice());
+        writeName(base, product.getName());
+        records.putInt(base + FLAGS, LIVE | (id == null ? 0 : HAS_ID));
+        slotsUsed++;
+        return slot;
+    }
+
+    /** Returns the number of slot bytes changed. */
+    private int overwrite(int slot, Product product) throws IOException {
+        int base = HEADER_BYTES + slot * SLOT_BYTES;
+        records.putDouble(base + PRICE, product.getPrice());
+        String name = product.getName();
+        if (name == null ? records.getInt(base + NAME_LENGTH) >= 0 : !name.equals(readName(base))) {
+            writeName(base, name);
+            return Double.BYTES + 2 * Integer.BYTES;
+        }
+        return Double.BYTES;
+    }
+
+    /** Appends the name to the string region and points the slot at it; length -1 means null. */
+    private void writeName(int base, String name) throws IOException {
+        if (name == null) {
+            records.putInt(base + NAME_OFFSET, 0);
+            records.putInt(base + NAME_LENGTH, -1);
+            return;
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (namesUsed + bytes.length > nameLimit) {
+            throw new IOException(namesFile + " would exceed " + nameLimit + " bytes of live product names");
+        }
+        if (namesUsed + bytes.length > names.capacity()) {
+            remap(records.capacity(), Math.min(nameLimit,
+                    Math.max(names.capacity() * 2L, namesUsed + bytes.length)));
+        }
+        names.put((int) namesUsed, bytes);
+        records.putInt(base + NAME_OFFSET, (int) namesUsed);
+        records.putInt(base + NAME_LENGTH, bytes.length);
+        namesUsed += bytes.length;
+    }
+
+    private String readName(int base) {
+        int length = records.getInt(base + NAME_LENGTH);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        names.get(records.getInt(base + NAME_OFFSET), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.repository;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.UUID;
+
+import com.example.model.Cart;
+import com.example.model.CartLine;
+import com.example.model.Order;
+import com.example.model.Product;
+import com.example.model.User;
+
+import static com.example.repository.RecordCodec.*;
+
+/**
+ * Record layouts of the four entity types. Field order is the format: append new fields
+ * at the end and bump {@link BinaryFileStorage}'s version when a layout changes.
+ */
+final class ModelCodecs {
+
+    static final RecordCodec<UUID> ID = new RecordCodec<>() {
+        @Override
+        public void write(DataOutput out, UUID id) throws IOException {
+            writeUuid(out, id);
+        }
+
+        @Override
+        public UUID read(DataInput in) throws IOException {
+            return readUuid(in);
+        }
+    };
+
+    static final RecordCodec<Product> PRODUCT = new RecordCodec<>() {
+        @Override
+        public void write(DataOutput out, Product product) throws IOException {
+            writeUuid(out, product.getId());
+            writeString(out, product.getName());
+            out.writeDouble(product.getPrice());
+        }
+
+        @Override
+        public Product read(DataInput in) throws IOException {
+            return new Product(readUuid(in), readString(in), in.readDouble());
+        }
+    };
+
+    static final RecordCodec<Order> ORDER = new RecordCodec<>() {
+        @Override
+        public void write(DataOutput out, Order order) throws IOException {
+            writeUuid(out, order.getId());
+            writeUuid(out, order.getUserId());
+            out.writeDouble(order.getTotalPrice());
+            writeList(out, order.getProducts(), PRODUCT);
+        }
+
+        @Override
+        public Order read(DataInput in) throws IOException {
+            return new Order(readUuid(in), readUuid(in), in.readDouble(), readList(in, PRODUCT));
+        }
+    };
+
+    // Name and price are only present for products missing from the catalog.
+    static final RecordCodec<CartLine> CART_LINE = new RecordCodec<>() {
+        @Override
+        public void write(DataOutput out, CartLine line) throws IOException {
+            writeUuid(out, line.getId());
+            out.writeInt(line.getQuantity());
+            writeString(out, line.getName());
+            out.writeBoolean(line.getPrice() != null);
+            if (line.getPrice() != null) {
+                out.writeDouble(line.getPrice());
+            }
+        }
+
+        @Override
+        public CartLine read(DataInput in) throws IOException {
+            return new CartLine(readUuid(in), in.readInt(), readString(in), in.readBoolean() ? in.readDouble() : null);
+        }
+    };
+
+    static final RecordCodec<Cart> CART = new RecordCodec<>() {
+        @Override
+        public void write(DataOutput out, Cart cart) throws IOException {
+            writeUuid(out, cart.getId());
+            writeUuid(out, cart.getUserId());
+            writeList(out, cart.getLines(), CART_LINE);
+        }
+
+        @Override
+        public Cart read(DataInput in) throws IOException {
+            Cart cart = new Cart(readUuid(in), readUuid(in), null);
+            cart.setLines(readList(in, CART_LINE));
+            return cart;
+        }
+
+        // Version 1 stored a full product per unit.
+        @Override
+        public Cart read(DataInput in, int version) throws IOException {
+            if (version == 1) {
+                return new Cart(readUuid(in), readUuid(in), readList(in, PRODUCT));
+            }
+            return read(in);
+        }
+    };
+
+    static final RecordCodec<User> USER = new RecordCodec<>() {
+        @Override
+        public void write(DataOutput out, User user) throws IOException {
+            writeUuid(out, user.getId());
+            writeString(out, user.getName());
+            writeList(out, user.getOrders(), ORDER);
+            writeList(out, user.getOrderIds(), ID);
+        }
+
+        @Override
+        public User read(DataInput in) throws IOException {
+            User user = new User(readUuid(in), readString(in), readList(in, ORDER));
+            user.setOrderIds(readList(in, ID));
+            return user;
+        }
+
+        // Before version 3 users embedded every order and had no order ids.
+        @Override
+        public User read(DataInput in, int version) throws IOException {
+            if (version < 3) {
+                return new User(readUuid(in), readString(in), readList(in, ORDER));
+            }
+            return read(in);
+        }
+    };
+
+    private ModelCodecs() {
+    }
+}
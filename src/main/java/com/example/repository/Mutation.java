@@ -0,0 +1,86 @@
+package com.example.repository;
+
+import java.util.UUID;
+
+/**
+ * One change to a repository: the unit that is applied to the resident store and,
+ * in log mode, appended to the data file's log as {"op", "id", "data"}.
+ */
+final class Mutation<T> {
+
+    enum Op { ADD, PUT, DELETE }
+
+    private final Op op;
+    private final UUID id;
+    private final T data;
+    // An ADD that matches nothing when the id is already stored (checked under the write lock).
+    private final boolean ifAbsent;
+
+    private Mutation(Op op, UUID id, T data) {
+        this(op, id, data, false);
+    }
+
+    private Mutation(Op op, UUID id, T data, boolean ifAbsent) {
+        this.op = op;
+        this.id = id;
+        this.data = data;
+        this.ifAbsent = ifAbsent;
+    }
+
+    static <T> Mutation<T> add(UUID id, T data) {
+        return new Mutation<>(Op.ADD, id, data);
+    }
+
+    /** An ADD that is skipped when a row with this id is already stored; logged as a plain ADD. */
+    static <T> Mutation<T> addIfAbsent(UUID id, T data) {
+        return new Mutation<>(Op.ADD, id, data, true);
+    }
+
+    static <T> Mutation<T> put(UUID id, T data) {
+        return new Mutation<>(Op.PUT, id, data);
+    }
+
+    static <T> Mutation<T> delete(UUID id) {
+        return new Mutation<>(Op.DELETE, id, null);
+    }
+
+    Op getOp() { return op; }
+    UUID getId() { return id; }
+    T getData() { return data; }
+
+    /**
+     * Applies a live change. Returns false when a PUT or DELETE matched nothing, or an
+     * {@link #addIfAbsent} found its id already stored. With {@code uniqueIds} an ADD for an
+     * id that is already stored replaces it.
+     */
+    boolean apply(EntityStore<T> store, boolean uniqueIds) {
+        switch (op) {
+            case ADD:
+                if (ifAbsent && store.contains(id)) {
+                    return false;
+                }
+                if (!uniqueIds || !store.replace(id, data)) {
+                    store.add(data);
+                }
+                return true;
+            case PUT:
+                return store.replace(id, data);
+            case DELETE:
+                return store.remove(id);
+            default:
+                throw new IllegalStateException("Unknown op " + op);
+        }
+    }
+
+    /**
+     * Applies a logged change during startup replay. Replay is idempotent, so replaying
+     * records that a newer snapshot already contains leaves the snapshot's state intact.
+     */
+    void replay(EntityStore<T> store) {
+        if (op == Op.DELETE) {
+            store.remove(id);
+        } else if (!store.replace(id, data)) {
+            store.add(data);
+        }
+    }
+}
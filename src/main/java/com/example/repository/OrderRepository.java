@@ -5,6 +5,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
@@ -15,6 +16,11 @@ public class OrderRepository extends MainRepository<Order> {
     @Value("${spring.application.orderDataPath}")
     private String orderDataPath;
 
+    public OrderRepository() {
+        indexBy("userId", Order::getUserId); // userId -> orders, for getOrdersByUserId
+        sortBy("totalPrice", Double.class, Order::getTotalPrice); // for paged GET /order/?sort=totalPrice
+    }
+
     /**
      * Returns the data path for orders.json.
      */
@@ -31,6 +37,16 @@ public class OrderRepository extends MainRepository<Order> {
         return Order[].class;
     }
 
+    @Override
+    protected UUID getId(Order order) {
+        return order.getId();
+    }
+
+    @Override
+    RecordCodec<Order> getCodec() {
+        return ModelCodecs.ORDER;
+    }
+
     /**
      * Add Order:
      * Adds a new order to the orders JSON file.
@@ -47,17 +63,28 @@ public class OrderRepository extends MainRepository<Order> {
         return findAll(); // 'findAll()' is inherited from MainRepository
     }
 
+    /**
+     * Get a Page of Orders:
+     * Up to limit orders in file order or by totalPrice, after the cursor (see MainRepository.findPage).
+     */
+    public Page<Order> getOrdersPage(String sort, String after, int limit) {
+        return findPage(sort, after, limit);
+    }
+
     /**
      * Get a Specific Order:
      * Retrieves an order by its unique ID.
      */
     public Order getOrderById(UUID orderId) {
-        for (Order order : getOrders()) {
-            if (order.getId().equals(orderId)) {
-                return order;
-            }
-        }
-        return null;
+        return findById(orderId); // O(1) through the primary index
+    }
+
+    /**
+     * Get a User's Orders:
+     * Retrieves the orders placed by a user through the userId index.
+     */
+    public List<Order> getOrdersByUserId(UUID userId) {
+        return findAllBy("userId", userId, Order::getUserId);
     }
 
     /**
@@ -65,10 +92,6 @@ public class OrderRepository extends MainRepository<Order> {
      * Deletes an order by its ID and updates the JSON file.
      */
     public void deleteOrderById(UUID orderId) {
-        ArrayList<Order> orders = getOrders();
-        boolean removed = orders.removeIf(o -> o.getId().equals(orderId));
-        if (removed) {
-            overrideData(orders); // 'overrideData()' writes the updated list back to the JSON file
-        }
+        deleteById(orderId); // only rewrites the JSON file when something was removed
     }
 }
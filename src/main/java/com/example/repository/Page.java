@@ -0,0 +1,25 @@
+package com.example.repository;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paged listing. {@code next} is an opaque cursor to pass back as
+ * {@code after} for the following page, or null on the last page.
+ */
+public record Page<T>(List<T> items, String next) {
+
+    /** Page size when a listing is paged (after or sort given) without a limit. */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /** Largest page a listing hands out; a bigger limit is a bad request. */
+    public static final int MAX_LIMIT = 1000;
+
+    /** True when a listing request asks for a page rather than every row. */
+    public static boolean requested(Integer limit, String after, String sort) {
+        return limit != null || after != null || sort != null;
+    }
+
+    public static int limit(Integer limit) {
+        return limit == null ? DEFAULT_LIMIT : limit;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.repository;
+
+/**
+ * Outcome of a bulk price change: products repriced and how long the run took.
+ */
+public record PricingResult(long affected, long millis) {
+}
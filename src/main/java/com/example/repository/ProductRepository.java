@@ -1,18 +1,18 @@
 package com.example.repository;
 
+import com.example.model.PriceChange;
 import com.example.model.Product;
-import com.fasterxml.jackson.core.type.TypeReference;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.io.File;
-import java.io.IOException;
-import java.util.List;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Optional;
+import java.util.HashSet;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Repository
 @SuppressWarnings("rawtypes")
@@ -21,7 +21,14 @@ public class ProductRepository extends MainRepository<Product> {
     @Value("${spring.application.productDataPath}")
     private String productDataPath;  // Injected from application.properties
 
-    public ProductRepository() {}
+    // "json" follows storageMode; "mmap" keeps the catalog in memory-mapped fixed-layout records.
+    @Value("${spring.application.productStorageEngine:json}")
+    private String productStorageEngine;
+
+    public ProductRepository() {
+        sortBy("price", Double.class, Product::getPrice); // for paged GET /product/?sort=price
+        sortBy("name", String.class, Product::getName);
+    }
 
     @Override
     protected String getDataPath() {
@@ -33,6 +40,24 @@ public class ProductRepository extends MainRepository<Product> {
         return Product[].class;
     }
 
+    @Override
+    protected UUID getId(Product product) {
+        return product.getId();
+    }
+
+    @Override
+    RecordCodec<Product> getCodec() {
+        return ModelCodecs.PRODUCT;
+    }
+
+    @Override
+    EntityStorage<Product> createStorage(Path file, FsyncPolicy policy) {
+        if ("mmap".equalsIgnoreCase(productStorageEngine)) {
+            return new MappedProductStorage(objectMapper, file, policy, metrics);
+        }
+        return super.createStorage(file, policy);
+    }
+
     public Product addProduct(Product product) {
         save(product);
         return product;
@@ -42,64 +67,78 @@ public class ProductRepository extends MainRepository<Product> {
         return findAll();
     }
 
+    public Page<Product> getProductsPage(String sort, String after, int limit) {
+        return findPage(sort, after, limit);
+    }
+
     public Product getProductById(UUID productId) {
-        try {
-            return findAll().stream()
-                    .filter(product -> product.getId().equals(productId))
-                    .findFirst()
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Unable to read products.json");
+        Product product = findById(productId);
+        if (product == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
         }
+        return product;
     }
 
     public Product updateProduct(UUID productId, String newName, Double newPrice) {
-        try {
-            File file = new File(getDataPath());
-            List<Product> products = objectMapper.readValue(file, new TypeReference<List<Product>>() {});
-
-            return products.stream()
-                    .filter(product -> product.getId().equals(productId))
-                    .findFirst()
-                    .map(product -> {
-                        if (newName != null) {
-                            product.setName(newName);
-                        }
-                        if (newPrice != null) { // Only update price if newPrice is provided
-                            product.setPrice(newPrice);
-                        }
-                        saveAll(new ArrayList<>(products)); // Save the updated list
-                        return product;
-                    })
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to update product", e);
+        Product updated = modify(productId, product -> {
+            if (newName != null) {
+                product.setName(newName);
+            }
+            if (newPrice != null) { // Only update price if newPrice is provided
+                product.setPrice(newPrice);
+            }
+            return true;
+        });
+        if (updated == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
         }
+        return updated;
     }
     public void applyDiscount(double discount, ArrayList<UUID> productIds) {
         try {
-            File file = new File(getDataPath());
-            List<Product> products = objectMapper.readValue(file, new TypeReference<List<Product>>() {});
-            for (Product product : products) {
-                if (productIds.contains(product.getId())) {
-                    double newPrice = product.getPrice() * (1 - discount / 100);
-                    product.setPrice(newPrice);
-                }
-            }
-            objectMapper.writeValue(file, products);
+            reprice(new PriceChange(new HashSet<>(productIds), null, null, null, discount));
         } catch (Exception e) {
             e.printStackTrace();
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Unable to update products.json");
         }
     }
 
+    /**
+     * Bulk pricing: applies the change to every product it targets, with one write. With ids
+     * the candidates come straight from them (hash lookups); otherwise the catalog is scanned
+     * in parallel, the skip list splitting into partitions. The candidates' stripes are then
+     * locked, and each one is re-read, re-checked and repriced (again in parallel) so a
+     * concurrent update is never lost.
+     */
+    public PricingResult reprice(PriceChange change) {
+        if (!change.targetsSomething()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Give ids, a price range or a name prefix");
+        }
+        long started = System.nanoTime();
+        EntityStore<Product> catalog = current();
+        List<UUID> candidates = change.ids() != null
+                ? new ArrayList<>(change.ids())
+                : catalog.values().parallelStream().filter(change::matches).map(Product::getId).toList();
+        int affected = withLocks(candidates, () -> {
+            EntityStore<Product> s = current();
+            List<Product> changed = candidates.parallelStream()
+                    .map(s::get)
+                    .filter(product -> product != null && change.matches(product))
+                    .map(product -> {
+                        Product repriced = copyOf(product);
+                        repriced.setPrice(change.apply(product.getPrice()));
+                        return repriced;
+                    })
+                    .toList();
+            return changed.isEmpty() ? 0 : updateAll(changed);
+        });
+        metrics.timed("reprice", started);
+        return new PricingResult(affected, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
     public void deleteProductById(UUID productId) {
         try {
-            File file = new File(getDataPath());
-            List<Product> products = objectMapper.readValue(file, new TypeReference<List<Product>>() {});
-            products.removeIf(product -> product.getId().equals(productId));
-            objectMapper.writeValue(file, products);
+            deleteById(productId);
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Unable to delete product.");
         }
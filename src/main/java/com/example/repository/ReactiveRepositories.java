@@ -0,0 +1,68 @@
+package com.example.repository;
+
+import java.util.concurrent.Callable;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.model.Cart;
+import com.example.model.Order;
+import com.example.model.Product;
+import com.example.model.User;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive views of the four repositories, sharing one bounded scheduler for their blocking
+ * work: at most reactiveIoThreads threads, with up to reactiveIoQueue tasks waiting, however
+ * many clients are connected.
+ */
+@Component
+public class ReactiveRepositories {
+
+    private final Scheduler scheduler;
+    private final ReactiveRepository<Product> products;
+    private final ReactiveRepository<Order> orders;
+    private final ReactiveRepository<Cart> carts;
+    private final ReactiveRepository<User> users;
+
+    public ReactiveRepositories(ProductRepository productRepository, OrderRepository orderRepository,
+                                CartRepository cartRepository, UserRepository userRepository,
+                                @Value("${spring.application.reactiveIoThreads:16}") int threads,
+                                @Value("${spring.application.reactiveIoQueue:10000}") int queue) {
+        this.scheduler = Schedulers.newBoundedElastic(threads, queue, "repository-io", 60, true);
+        this.products = new ReactiveRepository<>(productRepository, scheduler);
+        this.orders = new ReactiveRepository<>(orderRepository, scheduler);
+        this.carts = new ReactiveRepository<>(cartRepository, scheduler);
+        this.users = new ReactiveRepository<>(userRepository, scheduler);
+    }
+
+    @PreDestroy
+    void close() {
+        scheduler.dispose();
+    }
+
+    public ReactiveRepository<Product> products() {
+        return products;
+    }
+
+    public ReactiveRepository<Order> orders() {
+        return orders;
+    }
+
+    public ReactiveRepository<Cart> carts() {
+        return carts;
+    }
+
+    public ReactiveRepository<User> users() {
+        return users;
+    }
+
+    /** Runs a blocking call on the repository scheduler; null completes empty. */
+    public <R> Mono<R> call(Callable<R> blocking) {
+        return Mono.fromCallable(blocking).subscribeOn(scheduler);
+    }
+}
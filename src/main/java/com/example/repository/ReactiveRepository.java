@@ -0,0 +1,43 @@
+package com.example.repository;
+
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Non-blocking view of a {@link MainRepository}. Nothing runs on the subscriber's thread:
+ * every call, including the file I/O behind it, happens on the bounded repository scheduler
+ * (see {@link ReactiveRepositories}).
+ */
+public class ReactiveRepository<T> {
+
+    private final MainRepository<T> repository;
+    private final Scheduler scheduler;
+
+    ReactiveRepository(MainRepository<T> repository, Scheduler scheduler) {
+        this.repository = repository;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Every row, emitted one by one straight from the resident store instead of being
+     * copied into a list first. Rows are handed out as the blocking API does
+     * ({@link MainRepository#view}), e.g. carts with their products' names and prices.
+     */
+    public Flux<T> findAll() {
+        return Flux.defer(() -> Flux.fromIterable(repository.rows())).map(repository::view).subscribeOn(scheduler);
+    }
+
+    /** The row with this id, or an empty Mono. */
+    public Mono<T> findById(UUID id) {
+        return call(() -> repository.view(repository.findById(id)));
+    }
+
+    /** Runs a blocking repository or service call on the repository scheduler; null completes empty. */
+    public <R> Mono<R> call(Callable<R> blocking) {
+        return Mono.fromCallable(blocking).subscribeOn(scheduler);
+    }
+}
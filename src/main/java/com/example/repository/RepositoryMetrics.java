@@ -0,0 +1,61 @@
+package com.example.repository;
+
+import com.example.metrics.FileIoStats;
+import com.example.metrics.Histogram;
+import com.example.metrics.HistogramSnapshot;
+import com.example.metrics.IoCounter;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What one repository spends its time on: latency per operation (including "load", the
+ * parsing of the data file), rows looked at per lookup (keyed by the field looked up),
+ * and bytes moved per file by its storage.
+ */
+public final class RepositoryMetrics {
+
+    private final Map<String, Histogram> operations = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> rowsScanned = new ConcurrentHashMap<>();
+    private final Map<Path, IoCounter> files = new ConcurrentHashMap<>();
+
+    /**
+     * Per operation in microseconds, rows scanned per lookup, and I/O per file.
+     */
+    public record Snapshot(Map<String, HistogramSnapshot> operations, Map<String, HistogramSnapshot> rowsScanned,
+                           List<FileIoStats> files) {
+    }
+
+    void timed(String operation, long startedNanos) {
+        operations.computeIfAbsent(operation, o -> new Histogram()).record(System.nanoTime() - startedNanos);
+    }
+
+    void scanned(String field, long rows) {
+        rowsScanned.computeIfAbsent(field, f -> new Histogram()).record(rows);
+    }
+
+    IoCounter file(Path path) {
+        return files.computeIfAbsent(path, p -> new IoCounter(p.getFileName().toString()));
+    }
+
+    public Snapshot snapshot() {
+        Map<String, HistogramSnapshot> ops = new TreeMap<>();
+        operations.forEach((name, histogram) -> ops.put(name, histogram.snapshot(1_000)));
+        Map<String, HistogramSnapshot> scans = new TreeMap<>();
+        rowsScanned.forEach((field, histogram) -> scans.put(field, histogram.snapshot(1)));
+        List<FileIoStats> io = new ArrayList<>();
+        files.values().forEach(counter -> io.add(counter.snapshot()));
+        io.sort((a, b) -> a.file().compareTo(b.file()));
+        return new Snapshot(ops, scans, io);
+    }
+
+    public void reset() {
+        operations.values().forEach(Histogram::reset);
+        rowsScanned.values().forEach(Histogram::reset);
+        files.values().forEach(IoCounter::reset);
+    }
+}
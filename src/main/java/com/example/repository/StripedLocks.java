@@ -0,0 +1,111 @@
+package com.example.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import com.example.metrics.StorageEvent;
+
+/**
+ * A fixed set of locks picked by entity id, so read-modify-write on one cart or user is
+ * serialized while changes to different entities run in parallel. Every stripe counts how
+ * often it was taken, how often a caller had to wait for it, and for how long; each wait is
+ * also a {@link StorageEvent.LockWait} in a flight recording.
+ */
+final class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final LongAdder[] acquisitions;
+    private final LongAdder[] contended;
+    private final LongAdder[] waitNanos;
+    private final int mask;
+    private final String entity;
+
+    StripedLocks(int stripes, String entity) {
+        this.entity = entity;
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1; // next power of two
+        mask = size - 1;
+        locks = new ReentrantLock[size];
+        acquisitions = new LongAdder[size];
+        contended = new LongAdder[size];
+        waitNanos = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+            acquisitions[i] = new LongAdder();
+            contended[i] = new LongAdder();
+            waitNanos[i] = new LongAdder();
+        }
+    }
+
+    int stripeOf(UUID id) {
+        if (id == null) {
+            return 0;
+        }
+        int h = id.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    <R> R withLock(UUID id, Supplier<R> action) {
+        int stripe = stripeOf(id);
+        lock(stripe);
+        try {
+            return action.get();
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Takes the stripes of all ids in ascending stripe order, so two callers locking
+     * overlapping sets cannot deadlock.
+     */
+    <R> R withLocks(Collection<UUID> ids, Supplier<R> action) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (UUID id : ids) {
+            stripes.add(stripeOf(id));
+        }
+        List<Integer> held = new ArrayList<>(stripes.size());
+        try {
+            for (int stripe : stripes) {
+                lock(stripe);
+                held.add(stripe);
+            }
+            return action.get();
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                locks[held.get(i)].unlock();
+            }
+        }
+    }
+
+    List<LockStats> stats() {
+        List<LockStats> stats = new ArrayList<>();
+        for (int i = 0; i < locks.length; i++) {
+            long taken = acquisitions[i].sum();
+            if (taken > 0) {
+                stats.add(new LockStats(i, taken, contended[i].sum(), waitNanos[i].sum() / 1_000));
+            }
+        }
+        return stats;
+    }
+
+    private void lock(int stripe) {
+        ReentrantLock lock = locks[stripe];
+        acquisitions[stripe].increment();
+        if (lock.tryLock()) {
+            return;
+        }
+        contended[stripe].increment();
+        StorageEvent.LockWait wait = new StorageEvent.LockWait();
+        wait.begin();
+        long started = System.nanoTime();
+        lock.lock();
+        waitNanos[stripe].add(System.nanoTime() - started);
+        wait.finish(entity, 1, 0);
+    }
+}
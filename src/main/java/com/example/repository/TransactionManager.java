@@ -0,0 +1,289 @@
+package com.example.repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Commits {@link UnitOfWork}s across repositories, all or nothing.
+ * <ol>
+ *   <li>take the stripe locks of every touched id, then every repository's write lock,
+ *       always in entity-name order;</li>
+ *   <li>resolve and apply the staged changes in memory;</li>
+ *   <li>write them all to the journal (temp file + rename, so it is whole or absent);</li>
+ *   <li>persist each repository with one storage write;</li>
+ *   <li>delete the journal.</li>
+ * </ol>
+ * A journal found at startup belongs to a transaction that may have reached only some files;
+ * its changes are replayed into every repository it names and it is deleted.
+ * <p>
+ * With group commit on, units committed within the same window are handed to one writer
+ * thread and go through these steps together, so concurrent checkouts share one journal
+ * write and one write per data file.
+ */
+@Component
+public class TransactionManager {
+
+    private final List<MainRepository<?>> repositories;
+    private final Map<String, MainRepository<?>> byEntity = new HashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // One journal file, so commits run one at a time (the writer thread, or callers without it).
+    private final ReentrantLock commitLock = new ReentrantLock();
+
+    @Value("${spring.application.journalPath:src/main/java/com/example/data/journal.json}")
+    private String journalPath;
+
+    @Value("${spring.application.fsyncPolicy:always}")
+    private String fsyncPolicy;
+
+    @Value("${spring.application.groupCommit:true}")
+    private boolean groupCommit;
+
+    @Value("${spring.application.groupCommitWindowMs:2}")
+    private long groupCommitWindowMs;
+
+    @Value("${spring.application.groupCommitMaxOps:256}")
+    private int groupCommitMaxOps;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private GroupCommitWriter<UnitOfWork, Boolean> writer;
+
+    public TransactionManager(List<MainRepository<?>> repositories) {
+        this.repositories = repositories;
+    }
+
+    @PostConstruct
+    void recoverPending() throws IOException {
+        for (MainRepository<?> repository : repositories) {
+            byEntity.put(repository.getEntityName(), repository);
+        }
+        Path journal = Path.of(journalPath);
+        if (Files.exists(journal)) {
+            replay(readJournal(journal));
+            deleteJournal(journal);
+        }
+        if (groupCommit) {
+            writer = new GroupCommitWriter<>("transaction-writer", this::commitAll,
+                    TimeUnit.MILLISECONDS.toNanos(groupCommitWindowMs), groupCommitMaxOps, virtualThreads);
+        }
+    }
+
+    @PreDestroy
+    void close() throws InterruptedException {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    public UnitOfWork begin() {
+        return new UnitOfWork(this);
+    }
+
+    void commit(UnitOfWork unit) {
+        if (unit.isEmpty()) {
+            return;
+        }
+        if (writer != null) {
+            writer.submit(unit);
+        } else {
+            commitAll(List.of(unit));
+        }
+    }
+
+    /**
+     * Commits several units as one transaction; their steps are resolved in submission order.
+     */
+    private List<Boolean> commitAll(List<UnitOfWork> units) {
+        Map<MainRepository<?>, List<UnitOfWork.Step<?>>> steps = new TreeMap<>(
+                Comparator.comparing(MainRepository::getEntityName));
+        Map<MainRepository<?>, List<UUID>> ids = new HashMap<>();
+        for (UnitOfWork unit : units) {
+            unit.getSteps().forEach((repository, staged) -> {
+                steps.computeIfAbsent(repository, r -> new ArrayList<>()).addAll(staged);
+                ids.computeIfAbsent(repository, r -> new ArrayList<>()).addAll(unit.getLockedIds(repository));
+            });
+        }
+        List<MainRepository<?>> order = new ArrayList<>(steps.keySet());
+        commitLock.lock();
+        try {
+            withStripeLocks(ids, order, 0, () -> {
+                commitLocked(steps, order);
+                return null;
+            });
+        } finally {
+            commitLock.unlock();
+        }
+        return Collections.nCopies(units.size(), Boolean.TRUE);
+    }
+
+    private <R> R withStripeLocks(Map<MainRepository<?>, List<UUID>> ids, List<MainRepository<?>> order, int i,
+                                  Supplier<R> action) {
+        if (i == order.size()) {
+            return action.get();
+        }
+        MainRepository<?> repository = order.get(i);
+        return repository.withLocks(ids.get(repository), () -> withStripeLocks(ids, order, i + 1, action));
+    }
+
+    private void commitLocked(Map<MainRepository<?>, List<UnitOfWork.Step<?>>> steps, List<MainRepository<?>> order) {
+        int locked = 0;
+        List<Applied<?>> applied = new ArrayList<>();
+        try {
+            for (MainRepository<?> repository : order) {
+                repository.lockWrites();
+                locked++;
+            }
+            for (MainRepository<?> repository : order) {
+                Applied<?> changes = Applied.of(repository, steps.get(repository));
+                if (!changes.mutations.isEmpty()) {
+                    applied.add(changes);
+                }
+            }
+            if (applied.isEmpty()) {
+                return;
+            }
+            Path journal = Path.of(journalPath);
+            writeJournal(journal, applied);
+            try {
+                for (Applied<?> changes : applied) {
+                    changes.persist();
+                }
+            } catch (IOException e) {
+                // The journal is durable: finish the transaction from it right away.
+                replay(applied);
+            }
+            deleteJournal(journal);
+        } catch (IOException | RuntimeException e) {
+            for (Applied<?> changes : applied) {
+                changes.repository.invalidate();
+            }
+            throw new RuntimeException("Failed to commit transaction", e);
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                order.get(i).unlockWrites();
+            }
+        }
+    }
+
+    private void replay(List<Applied<?>> applied) throws IOException {
+        for (Applied<?> changes : applied) {
+            changes.recover();
+        }
+    }
+
+    private void writeJournal(Path journal, List<Applied<?>> applied) throws IOException {
+        DurableFiles.replace(journal, out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("changes");
+                for (Applied<?> changes : applied) {
+                    for (Mutation<?> mutation : changes.mutations) {
+                        generator.writeStartObject();
+                        generator.writeStringField("entity", changes.repository.getEntityName());
+                        generator.writeStringField("op", mutation.getOp().name());
+                        generator.writeStringField("id", mutation.getId() == null ? null : mutation.getId().toString());
+                        generator.writeObjectField("data", mutation.getData());
+                        generator.writeEndObject();
+                    }
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        }, forceJournal());
+    }
+
+    private List<Applied<?>> readJournal(Path journal) throws IOException {
+        Map<MainRepository<?>, Applied<?>> grouped = new LinkedHashMap<>();
+        for (JsonNode change : objectMapper.readTree(journal.toFile()).path("changes")) {
+            MainRepository<?> repository = byEntity.get(change.path("entity").asText());
+            if (repository == null) {
+                throw new IOException("Journal " + journal + " names unknown entity " + change.path("entity"));
+            }
+            grouped.computeIfAbsent(repository, Applied::empty).add(change, objectMapper);
+        }
+        return new ArrayList<>(grouped.values());
+    }
+
+    private void deleteJournal(Path journal) throws IOException {
+        Files.deleteIfExists(journal);
+        if (forceJournal()) {
+            // A journal that came back after a crash would replay over newer changes.
+            DurableFiles.forceDirectory(journal.toAbsolutePath().getParent());
+        }
+    }
+
+    private boolean forceJournal() {
+        return FsyncPolicy.parse(fsyncPolicy) != FsyncPolicy.OS;
+    }
+
+    /** The changes of one transaction that took effect in one repository. */
+    private static final class Applied<T> {
+
+        final MainRepository<T> repository;
+        final EntityStore<T> store;
+        final List<Mutation<T>> mutations = new ArrayList<>();
+
+        private Applied(MainRepository<T> repository, EntityStore<T> store) {
+            this.repository = repository;
+            this.store = store;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> Applied<T> of(MainRepository<T> repository, List<UnitOfWork.Step<?>> steps) {
+            Applied<T> applied = new Applied<>(repository, repository.current());
+            for (UnitOfWork.Step<?> step : steps) {
+                Mutation<T> mutation = ((UnitOfWork.Step<T>) step).resolve(repository, applied.store);
+                if (mutation != null && repository.applyStaged(applied.store, mutation)) {
+                    applied.mutations.add(mutation);
+                }
+            }
+            return applied;
+        }
+
+        @SuppressWarnings("unchecked")
+        static Applied<?> empty(MainRepository<?> repository) {
+            return new Applied<>((MainRepository<Object>) repository, null);
+        }
+
+        void add(JsonNode change, ObjectMapper objectMapper) throws IOException {
+            UUID id = change.hasNonNull("id") ? UUID.fromString(change.get("id").asText()) : null;
+            T data = change.hasNonNull("data") ? objectMapper.treeToValue(change.get("data"), repository.getEntityType()) : null;
+            mutations.add(switch (Mutation.Op.valueOf(change.path("op").asText())) {
+                case ADD -> Mutation.add(id, data);
+                case PUT -> Mutation.put(id, data);
+                case DELETE -> Mutation.delete(id);
+            });
+        }
+
+        void persist() throws IOException {
+            repository.persistStaged(store, mutations);
+        }
+
+        void recover() throws IOException {
+            repository.recover(mutations);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Changes to several repositories that are committed together: one journal write, then
+ * one write per data file, all or nothing (see {@link TransactionManager}). Units committed
+ * concurrently may share that journal and those writes, and then succeed or fail together.
+ * Nothing is visible to readers before {@link #commit()}. A unit of work is not thread-safe
+ * and is meant to be built and committed by one request.
+ */
+public class UnitOfWork {
+
+    /** One staged change, turned into a mutation under the repository's locks at commit time. */
+    interface Step<T> {
+        Mutation<T> resolve(MainRepository<T> repository, EntityStore<T> store);
+    }
+
+    private final TransactionManager manager;
+    private final Map<MainRepository<?>, List<Step<?>>> steps = new LinkedHashMap<>();
+    private final Map<MainRepository<?>, List<UUID>> lockedIds = new LinkedHashMap<>();
+
+    UnitOfWork(TransactionManager manager) {
+        this.manager = manager;
+    }
+
+    /** Adds a copy of {@code entity}, like {@link MainRepository#save}. */
+    public <T> UnitOfWork save(MainRepository<T> repository, T entity) {
+        T copy = repository.copyOf(entity);
+        return stage(repository, null, (r, s) -> Mutation.add(r.getId(copy), copy));
+    }
+
+    /**
+     * Adds a copy of what {@code entity} returns at commit time, under the locks; null leaves
+     * it out. Repositories resolve their steps in entity-name order, so {@code entity} can
+     * depend on the outcome of steps staged for repositories whose entity name sorts first.
+     */
+    public <T> UnitOfWork saveIf(MainRepository<T> repository, Supplier<T> entity) {
+        return stage(repository, null, (r, s) -> {
+            T value = entity.get();
+            if (value == null) {
+                return null;
+            }
+            T copy = r.copyOf(value);
+            return Mutation.add(r.getId(copy), copy);
+        });
+    }
+
+    /** Replaces the row with the same id, like {@link MainRepository#update}; skipped if there is none. */
+    public <T> UnitOfWork update(MainRepository<T> repository, T entity) {
+        T copy = repository.copyOf(entity);
+        return stage(repository, repository.getId(copy), (r, s) -> Mutation.put(r.getId(copy), copy));
+    }
+
+    /**
+     * Read-modify-write of one row, like {@link MainRepository#modify}. {@code change} runs at
+     * commit time on a private copy of the latest row, with the row's stripe lock held;
+     * returning false (or a missing row) leaves it out of the transaction.
+     */
+    public <T> UnitOfWork modify(MainRepository<T> repository, UUID id, Predicate<T> change) {
+        return stage(repository, id, (r, s) -> {
+            T current = s.get(id);
+            if (current == null) {
+                return null;
+            }
+            T copy = r.copyOf(current);
+            return change.test(copy) ? Mutation.put(id, copy) : null;
+        });
+    }
+
+    /** Removes every row with this id, like {@link MainRepository#deleteById}. */
+    public <T> UnitOfWork delete(MainRepository<T> repository, UUID id) {
+        return stage(repository, id, (r, s) -> Mutation.delete(id));
+    }
+
+    public boolean isEmpty() {
+        return steps.isEmpty();
+    }
+
+    /**
+     * Applies and persists every staged change. Throws if a file cannot be written; the
+     * journal then completes the transaction on the next start.
+     */
+    public void commit() {
+        manager.commit(this);
+    }
+
+    Map<MainRepository<?>, List<Step<?>>> getSteps() {
+        return steps;
+    }
+
+    List<UUID> getLockedIds(MainRepository<?> repository) {
+        return lockedIds.getOrDefault(repository, List.of());
+    }
+
+    private <T> UnitOfWork stage(MainRepository<T> repository, UUID id, Step<T> step) {
+        steps.computeIfAbsent(repository, r -> new ArrayList<>()).add(step);
+        List<UUID> ids = lockedIds.computeIfAbsent(repository, r -> new ArrayList<>());
+        if (id != null) {
+            ids.add(id);
+        }
+        return this;
+    }
+}
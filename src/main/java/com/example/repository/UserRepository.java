@@ -1,20 +1,23 @@
 package com.example.repository;
 
 import com.example.model.Order;
-import com.example.model.Product;
 import com.example.model.User;
-import com.fasterxml.jackson.core.type.TypeReference;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 
+/**
+ * Users reference their orders by id; the orders are read from the order repository when
+ * asked for. Users written before that (with every order embedded) are rewritten on
+ * startup, keeping embedded only the orders orders.json doesn't have.
+ */
 @Repository
 @SuppressWarnings("rawtypes")
 public class UserRepository extends MainRepository<User> {
@@ -22,6 +25,16 @@ public class UserRepository extends MainRepository<User> {
     @Value("${spring.application.userDataPath}")
     private String userDataPath;
 
+    // Absent when the repository is built by hand; users then keep their orders embedded.
+    @Autowired(required = false)
+    private OrderRepository orderStore;
+
+    @Override
+    void open() {
+        super.open();
+        migrate();
+    }
+
     /**
      * Tells MainRepository where to find the users.json file.
      */
@@ -38,6 +51,16 @@ public class UserRepository extends MainRepository<User> {
         return User[].class;
     }
 
+    @Override
+    protected UUID getId(User user) {
+        return user.getId();
+    }
+
+    @Override
+    RecordCodec<User> getCodec() {
+        return ModelCodecs.USER;
+    }
+
     /**
      * 1) Get Users
      *    Returns all users from the JSON file.
@@ -46,17 +69,20 @@ public class UserRepository extends MainRepository<User> {
         return findAll(); // findAll() is inherited from MainRepository
     }
 
+    /**
+     * 1b) Get a Page of Users
+     *    Up to limit users in file order, after the cursor (see MainRepository.findPage).
+     */
+    public Page<User> getUsersPage(String after, int limit) {
+        return findPage(null, after, limit);
+    }
+
     /**
      * 2) Get User By ID
      *    Fetch a user by its unique ID.
      */
     public User getUserById(UUID userId) {
-        for (User user : getUsers()) {
-            if (user.getId().equals(userId)) {
-                return user;
-            }
-        }
-        return null;
+        return findById(userId); // primary index, no file access
     }
 
     /**
@@ -64,47 +90,39 @@ public class UserRepository extends MainRepository<User> {
      *    Adds a new user to the JSON file.
      */
     public User addUser(User user) {
-        save(user); // save() is inherited from MainRepository
+        User compact = copyOf(user);
+        referenceStoredOrders(compact);
+        save(compact); // save() is inherited from MainRepository
         return user;
     }
 
     /**
      * 4) Get the Orders of a User
-     *    Retrieve all orders for a given user ID.
+     *    The referenced orders, looked up by id (ids whose order is gone are skipped), then
+     *    the ones still embedded in the record.
      */
     public List<Order> getOrdersByUserId(UUID userId) {
         User user = getUserById(userId);
-        return (user != null) ? user.getOrders() : new ArrayList<>();
+        return (user != null) ? getOrders(user) : new ArrayList<>();
     }
 
     /**
      * 5) Add Order to the User
-     *    Lets the user add an order to their orders list.
+     *    Adds a reference to a stored order; an order orders.json doesn't have is embedded.
      */
     public void addOrderToUser(UUID userId, Order order) {
-        ArrayList<User> users = getUsers();
-        for (User u : users) {
-            if (u.getId().equals(userId)) {
-                u.getOrders().add(order);
-                overrideData(users); // overwrite the JSON file with the updated list
-                return;
-            }
-        }
+        modify(userId, user -> isStored(order.getId())
+                ? user.getOrderIds().add(order.getId())
+                : user.getOrders().add(order)); // rewrites only this user's row
     }
 
     /**
      * 6) Remove Order from User
-     *    Removes a specific order from the user's orders list.
+     *    Removes a specific order (reference or embedded) from the user.
      */
     public void removeOrderFromUser(UUID userId, UUID orderId) {
-        ArrayList<User> users = getUsers();
-        for (User u : users) {
-            if (u.getId().equals(userId)) {
-                u.getOrders().removeIf(o -> o.getId().equals(orderId));
-                overrideData(users);
-                return;
-            }
-        }
+        modify(userId, user -> user.getOrderIds().remove(orderId)
+                | user.getOrders().removeIf(o -> o.getId().equals(orderId)));
     }
 
     /**
@@ -112,21 +130,73 @@ public class UserRepository extends MainRepository<User> {
      *    Deletes a user by passing his/her ID.
      */
     public void deleteUserById(UUID userId) {
+        boolean removed;
         try {
-            File file = new File(getDataPath());
-            List<User> users = objectMapper.readValue(file, new TypeReference<List<User>>() {});
-            boolean removed = users.removeIf(user -> user.getId().equals(userId));
-            if (!removed) {
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
-            }
-            objectMapper.writeValue(file, users);
-        } catch (IOException e) {
+            removed = deleteById(userId);
+        } catch (RuntimeException e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Unable to delete user.");
         }
+        if (!removed) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
     }
 
+    /**
+     * The orders of a user record: referenced ones first, then embedded ones.
+     */
+    public List<Order> getOrders(User user) {
+        List<Order> orders = new ArrayList<>();
+        if (orderStore != null && user.getOrderIds() != null) {
+            for (UUID orderId : user.getOrderIds()) {
+                Order order = orderStore.findById(orderId);
+                if (order != null) {
+                    orders.add(order);
+                }
+            }
+        }
+        if (user.getOrders() != null) {
+            orders.addAll(user.getOrders());
+        }
+        return orders;
+    }
 
+    private boolean isStored(UUID orderId) {
+        return orderStore != null && orderId != null && orderStore.findById(orderId) != null;
+    }
 
+    /** Replaces embedded orders that orders.json has by their ids; true if any were. */
+    private boolean referenceStoredOrders(User user) {
+        if (orderStore == null || user.getOrders() == null) {
+            return false;
+        }
+        boolean changed = false;
+        for (Iterator<Order> it = user.getOrders().iterator(); it.hasNext(); ) {
+            Order order = it.next();
+            if (isStored(order.getId())) {
+                it.remove();
+                if (user.getOrderIds() == null) {
+                    user.setOrderIds(new ArrayList<>());
+                }
+                if (!user.getOrderIds().contains(order.getId())) {
+                    user.getOrderIds().add(order.getId());
+                }
+                changed = true;
+            }
+        }
+        return changed;
+    }
 
-
+    /** Rewrites the file once if any user still embeds orders that orders.json has. */
+    private void migrate() {
+        ArrayList<User> users = new ArrayList<>();
+        boolean changed = false;
+        for (User user : rows()) {
+            User compact = copyOf(user);
+            changed |= referenceStoredOrders(compact);
+            users.add(compact);
+        }
+        if (changed) {
+            saveAll(users);
+        }
+    }
 }
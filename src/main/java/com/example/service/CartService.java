@@ -3,6 +3,7 @@ package com.example.service;
 import com.example.model.Cart;
 import com.example.model.Product;
 import com.example.repository.CartRepository;
+import com.example.repository.Page;
 import com.example.repository.ProductRepository;
 import com.example.repository.UserRepository;
 import org.springframework.stereotype.Service;
@@ -31,14 +32,29 @@ public class CartService extends MainService<Cart> {
         return cartRepository.getCarts();
     }
 
+    public Page<Cart> getCartsPage(String after, int limit) {
+        return cartRepository.getCartsPage(after, limit);
+    }
+
     public Cart getCartById(UUID cartId) {
         return cartRepository.getCartById(cartId);
     }
 
+    // Changes whenever this cart may have changed (see MainRepository.getVersion(UUID)), and
+    // with the catalog, since a cart shows its products' current names and prices. Both
+    // versions only grow, so their sum does too.
+    public long getCartVersion(UUID cartId) {
+        return cartRepository.getVersion(cartId) + productRepository.getVersion();
+    }
+
     public Cart getCartByUserId(UUID userId) {
         return cartRepository.getCartByUserId(userId);
     }
 
+    public Cart getOrCreateCart(UUID userId) {
+        return cartRepository.getOrCreateCart(userId);
+    }
+
     public void deleteCartById(UUID cartId) {
         cartRepository.deleteCartById(cartId);
     }
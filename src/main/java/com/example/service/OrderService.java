@@ -2,10 +2,14 @@ package com.example.service;
 
 import com.example.model.Order;
 import com.example.repository.OrderRepository;
+import com.example.repository.Page;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -28,11 +32,26 @@ public class OrderService { // Extend MainService<Order> if you have one, otherw
         return orderRepository.getOrders();
     }
 
+    // 2b) Get a Page of Orders: file order, or sorted by totalPrice.
+    public Page<Order> getOrdersPage(String sort, String after, int limit) {
+        return orderRepository.getOrdersPage(sort, after, limit);
+    }
+
+    // 2c) Export Orders: every order to out as NDJSON, without building the list.
+    public long exportOrders(OutputStream out) throws IOException {
+        return orderRepository.exportNdjson(out);
+    }
+
     // 3) Get a Specific Order: Retrieves an order by its ID.
     public Order getOrderById(UUID orderId) {
         return orderRepository.getOrderById(orderId);
     }
 
+    // Orders placed by a user, through the repository's userId index.
+    public List<Order> getOrdersByUserId(UUID userId) {
+        return orderRepository.getOrdersByUserId(userId);
+    }
+
     // 4) Delete a Specific Order: Deletes an order; throws exception if not found.
     public void deleteOrderById(UUID orderId) {
         Order order = orderRepository.getOrderById(orderId);
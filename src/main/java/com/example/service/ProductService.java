@@ -1,11 +1,18 @@
 package com.example.service;
 
+import com.example.model.PriceChange;
 import com.example.model.Product;
+import com.example.repository.ImportResult;
+import com.example.repository.Page;
+import com.example.repository.PricingResult;
 import com.example.repository.ProductRepository;
 import com.example.service.MainService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.UUID;
 
@@ -30,6 +37,22 @@ public class ProductService extends MainService<Product> {
     public static ArrayList<Product> getProducts(){
         return productRepository.getProducts();
     }
+    // 2b) Get a Page of Products (file order, or sorted by price / name)
+    public static Page<Product> getProductsPage(String sort, String after, int limit){
+        return productRepository.getProductsPage(sort, after, limit);
+    }
+    // 2c) Export Products as NDJSON, streamed to out
+    public static long exportProducts(OutputStream out) throws IOException {
+        return productRepository.exportNdjson(out);
+    }
+    // 1b) Import Products from an NDJSON stream, one commit for all of them
+    public static ImportResult importProducts(InputStream in) throws IOException {
+        return productRepository.importNdjson(in);
+    }
+    // Changes whenever the products may have changed (see MainRepository.getVersion())
+    public static long getProductsVersion(){
+        return productRepository.getVersion();
+    }
     // 3) Get Product By id
     public static Product getProductById(UUID productId){
         return productRepository.getProductById(productId);
@@ -42,6 +65,10 @@ public class ProductService extends MainService<Product> {
     public static void applyDiscount(double discount, ArrayList<UUID> productIds){
         productRepository.applyDiscount(discount,productIds);
     }
+    // 5b) Bulk Price Change: by ids, price range and/or name prefix, one write
+    public static PricingResult reprice(PriceChange change){
+        return productRepository.reprice(change);
+    }
     // 6 ) delete Product By ID
    public static void deleteProductById(UUID productId){
         productRepository.deleteProductById(productId);
@@ -1,25 +1,48 @@
 package com.example.service;
 
+import com.example.model.Cart;
+import com.example.model.CartLine;
 import com.example.model.Order;
+import com.example.model.Product;
 import com.example.model.User;
+import com.example.repository.CartRepository;
+import com.example.repository.ImportResult;
+import com.example.repository.OrderRepository;
+import com.example.repository.Page;
+import com.example.repository.TransactionManager;
+import com.example.repository.UnitOfWork;
 import com.example.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
     private final OrderService orderService; // New dependency for Order operations
+    private final OrderRepository orderRepository;
+    private final CartRepository cartRepository;
+    private final TransactionManager transactionManager;
 
     @Autowired
-    public UserService(UserRepository userRepository, OrderService orderService) {
+    public UserService(UserRepository userRepository, OrderService orderService,
+                       OrderRepository orderRepository, CartRepository cartRepository,
+                       TransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.cartRepository = cartRepository;
+        this.transactionManager = transactionManager;
     }
 
     // 1) Add New User
@@ -36,46 +59,164 @@ public class UserService {
         return userRepository.getUsers();
     }
 
+    public Page<User> getUsersPage(String after, int limit) {
+        return userRepository.getUsersPage(after, limit);
+    }
+
+    // Adds the users of an NDJSON stream with one commit; known ids are skipped
+    public ImportResult importUsers(InputStream in) throws IOException {
+        return userRepository.importNdjson(in);
+    }
+
+    // Writes every user to out as NDJSON without building the list
+    public long exportUsers(OutputStream out) throws IOException {
+        return userRepository.exportNdjson(out);
+    }
+
+    // Changes whenever the users may have changed (see MainRepository.getVersion())
+    public long getUsersVersion() {
+        return userRepository.getVersion();
+    }
+
     // 3) Get a Specific User
     public User getUserById(UUID userId) {
         return userRepository.getUserById(userId);
     }
 
     // 4) Get the User's Orders
+    //    The user's order references joined through the order repository's id index, then
+    //    any orders still embedded in the record.
     public List<Order> getOrdersByUserId(UUID userId) {
         User user = userRepository.getUserById(userId);
-        return (user != null) ? user.getOrders() : new ArrayList<>();
+        return user == null ? new ArrayList<>() : userRepository.getOrders(user);
+    }
+
+    // 4b) Users with their orders filled in, for ?expand=orders (copies; stored users keep ids)
+    private User withOrders(User user) {
+        if (user == null) {
+            return null;
+        }
+        User expanded = new User(user.getId(), user.getName(), userRepository.getOrders(user));
+        expanded.setOrderIds(user.getOrderIds());
+        return expanded;
+    }
+
+    public User getUserWithOrders(UUID userId) {
+        return withOrders(userRepository.getUserById(userId));
+    }
+
+    public ArrayList<User> getUsersWithOrders() {
+        ArrayList<User> users = userRepository.getUsers();
+        users.replaceAll(this::withOrders);
+        return users;
+    }
+
+    public Page<User> getUsersWithOrdersPage(String after, int limit) {
+        Page<User> page = userRepository.getUsersPage(after, limit);
+        return new Page<>(page.items().stream().map(this::withOrders).toList(), page.next());
+    }
+
+    // Expanded users change with the orders too; both versions only grow, so the sum does.
+    public long getUsersWithOrdersVersion() {
+        return userRepository.getVersion() + orderRepository.getVersion();
     }
 
     // 5) Add a New Order (Checkout)
+    //    Prices the user's cart (found through the userId index) in one pass, then writes the
+    //    order, references it from the user and takes the ordered products out of the cart in one
+    //    transaction. Concurrent checkouts share the transaction's journal and file writes.
+    //    A user without a cart still gets an (empty) order; an emptied cart orders nothing, so
+    //    a checkout that lost the cart to a concurrent one leaves no empty order behind.
     public void addOrderToUser(UUID userId) {
         User user = userRepository.getUserById(userId);
-        if (user != null) {
-            // Create a new order (dummy for now)
-            Order newOrder = new Order(UUID.randomUUID(), userId, 0.0, new ArrayList<>());
-            // Add the order to the user's orders list
-            user.getOrders().add(newOrder);
-            // Update the user record in users.json
-            userRepository.deleteUserById(userId);
-            userRepository.addUser(user);
-            // Persist the order in the orders repository (orders.json)
-            orderService.addOrder(newOrder);
+        if (user == null) {
+            return;
+        }
+        if (checkout(userId, true)) {
+            return;
+        }
+        // The cart changed between pricing and commit (e.g. a concurrent checkout took it): price
+        // it again. A cart that is gone or empty by now was ordered by that checkout.
+        while (!checkout(userId, false)) {
+        }
+    }
+
+    /**
+     * One checkout attempt. The cart step runs first at commit time (steps resolve in entity-name
+     * order: Cart, Order, User) and takes the priced lines only if every one is still there; the
+     * order and the user's reference are written only when it did. False when it didn't.
+     * An empty cart writes nothing and counts as done, as does a missing one unless
+     * {@code orderWithoutCart} (the first attempt) asks for the empty order.
+     */
+    private boolean checkout(UUID userId, boolean orderWithoutCart) {
+        Cart cart = cartRepository.getCartByUserId(userId);
+        List<CartLine> lines = cart == null ? List.of() : cart.getLines();
+        if (lines.isEmpty() && (cart != null || !orderWithoutCart)) {
+            return true;
+        }
+        List<Product> products = new ArrayList<>();
+        double total = 0.0;
+        for (CartLine line : lines) {
+            Product product = line.toProduct();
+            for (int i = 0; i < line.getQuantity(); i++) {
+                products.add(product);
+            }
+            total += line.getQuantity() * product.getPrice();
         }
+        Order newOrder = new Order(UUID.randomUUID(), userId, total, products);
+        AtomicBoolean taken = new AtomicBoolean(lines.isEmpty());
+        UnitOfWork checkout = transactionManager.begin();
+        if (!lines.isEmpty()) {
+            // Only what was priced leaves the cart; a product added meanwhile stays for next time.
+            checkout.modify(cartRepository, cart.getId(), c -> {
+                taken.set(removeOrdered(c, lines));
+                return taken.get();
+            });
+        }
+        checkout.saveIf(orderRepository, () -> taken.get() ? newOrder : null)
+                .modify(userRepository, userId, u -> taken.get() && u.getOrderIds().add(newOrder.getId()));
+        checkout.commit();
+        return taken.get();
     }
 
-    // 6) Empty Cart (Stub)
+    /** Takes the ordered quantities out of the cart; false (cart untouched) if any is no longer there. */
+    private static boolean removeOrdered(Cart cart, List<CartLine> ordered) {
+        Map<UUID, Integer> left = new HashMap<>();
+        for (CartLine line : ordered) {
+            left.merge(line.getId(), line.getQuantity(), Integer::sum);
+        }
+        List<CartLine> kept = new ArrayList<>();
+        for (CartLine line : cart.getLines()) {
+            int taken = Math.min(line.getQuantity(), left.getOrDefault(line.getId(), 0));
+            if (taken > 0) {
+                left.put(line.getId(), left.get(line.getId()) - taken);
+            }
+            if (taken < line.getQuantity()) {
+                line.setQuantity(line.getQuantity() - taken);
+                kept.add(line);
+            }
+        }
+        for (int missing : left.values()) {
+            if (missing > 0) {
+                return false;
+            }
+        }
+        cart.setLines(kept);
+        return true;
+    }
+
+    // 6) Empty Cart
     public void emptyCart(UUID userId) {
-        // Stub: No operation performed at this time.
+        Cart cart = cartRepository.getCartByUserId(userId);
+        if (cart != null) {
+            cartRepository.emptyCart(cart.getId());
+        }
     }
 
     // 7) Remove Order
+    //    Detaches the order from the user; the order record itself stays in orders.json.
     public void removeOrderFromUser(UUID userId, UUID orderId) {
-        User user = userRepository.getUserById(userId);
-        if (user != null) {
-            user.getOrders().removeIf(o -> o.getId().equals(orderId));
-            userRepository.deleteUserById(userId);
-            userRepository.addUser(user);
-        }
+        userRepository.removeOrderFromUser(userId, orderId);
     }
 
     // 8) Delete the User
@@ -0,0 +1,99 @@
+package com.example.MiniProject1;
+
+import com.example.model.Order;
+import com.example.model.Product;
+import com.example.model.User;
+import com.example.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryStorageTestJson {
+
+    @TempDir
+    Path dataDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Path usersFile;
+    private UserRepository userRepository;
+
+    @BeforeEach
+    public void openRepository() throws Exception {
+        usersFile = dataDir.resolve("users.json");
+        objectMapper.writeValue(usersFile.toFile(), new ArrayList<User>());
+        userRepository = open();
+    }
+
+    @AfterEach
+    public void closeRepository() {
+        ReflectionTestUtils.invokeMethod(userRepository, "close");
+    }
+
+    private UserRepository open() {
+        UserRepository repository = new UserRepository();
+        ReflectionTestUtils.setField(repository, "groupCommit", false);
+        ReflectionTestUtils.setField(repository, "lockStripes", 64);
+        ReflectionTestUtils.setField(repository, "userDataPath", usersFile.toString());
+        ReflectionTestUtils.setField(repository, "storageMode", "json");
+        ReflectionTestUtils.setField(repository, "dataFormat", "binary");
+        ReflectionTestUtils.setField(repository, "fsyncPolicy", "always");
+        ReflectionTestUtils.invokeMethod(repository, "open");
+        return repository;
+    }
+
+    private User userWithOrder(String name) {
+        UUID userId = UUID.randomUUID();
+        Product product = new Product(UUID.randomUUID(), "Nested", 9.99);
+        Order order = new Order(UUID.randomUUID(), userId, 9.99, new ArrayList<>(List.of(product)));
+        return new User(userId, name, new ArrayList<>(List.of(order)));
+    }
+
+    @Test
+    public void testNestedEntitiesRoundTrip() {
+        User user = userWithOrder("Binary User");
+        userRepository.addUser(user);
+        userRepository.addUser(new User(null, null, null));
+        closeRepository();
+
+        userRepository = open();
+        ArrayList<User> users = userRepository.getUsers();
+        assertEquals(2, users.size(), "Both users should be read back.");
+        User loaded = userRepository.findById(user.getId());
+        assertEquals("Binary User", loaded.getName(), "User name should survive the round trip.");
+        Order order = loaded.getOrders().get(0);
+        assertEquals(user.getOrders().get(0).getId(), order.getId(), "Embedded order id should survive the round trip.");
+        assertEquals(9.99, order.getProducts().get(0).getPrice(), "Nested product price should be stored exactly.");
+        assertNull(users.get(1).getId(), "A missing id should stay null.");
+        assertNull(users.get(1).getOrders(), "A missing list should stay null.");
+    }
+
+    @Test
+    public void testJsonIsImportedAndExported() throws Exception {
+        closeRepository();
+        Files.delete(dataDir.resolve("users.json.bin"));
+        User existing = userWithOrder("From JSON");
+        objectMapper.writeValue(usersFile.toFile(), List.of(existing));
+
+        userRepository = open();
+        assertEquals("From JSON", userRepository.findById(existing.getId()).getName(), "The JSON file should be imported.");
+        assertTrue(Files.size(dataDir.resolve("users.json.bin")) < Files.size(usersFile),
+                "The binary file should be smaller than the JSON it was imported from.");
+
+        Path exported = dataDir.resolve("export.json");
+        userRepository.exportJson(exported);
+        User[] users = objectMapper.readValue(exported.toFile(), User[].class);
+        assertEquals(1, users.length, "The export should hold every user.");
+        assertEquals(existing.getId(), users[0].getId(), "The exported user id should match.");
+    }
+}
@@ -1,19 +1,26 @@
 package com.example.MiniProject1;
 
 import com.example.model.Cart;
+import com.example.model.CartLine;
 import com.example.model.Product;
 import com.example.repository.CartRepository;
 import com.example.repository.ProductRepository;
 import com.example.service.CartService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -292,4 +299,77 @@ public class CartServiceTestJson {
         int sizeAfter = cartService.getCarts().size();
         assertEquals(sizeBefore - 1, sizeAfter, "Carts list size should decrease by one after deletion.");
     }
+
+    // =====================================================
+    // Tests for cart lines (product id and quantity)
+    // =====================================================
+
+    @Test
+    public void testCartLines_SameProductIsOneLine() throws Exception {
+        Product product = productRepository.addProduct(new Product(UUID.randomUUID(), "Mug", 8.0));
+        Cart cart = cartService.addCart(new Cart(UUID.randomUUID()));
+        cartService.addProductToCart(cart.getId(), product);
+        cartService.addProductToCart(cart.getId(), product);
+
+        Cart updated = cartService.getCartById(cart.getId());
+        assertEquals(1, updated.getLines().size(), "Both units should share one line.");
+        assertEquals(2, updated.getLines().get(0).getQuantity(), "The line should count both units.");
+        assertEquals(2, updated.getProducts().size(), "The product view should still list every unit.");
+        assertEquals("Mug", updated.getProducts().get(1).getName(), "Details should come from the catalog.");
+
+        JsonNode stored = objectMapper.readTree(new File(cartDataPath)).get(0).path("products").get(0);
+        assertEquals(2, stored.path("quantity").asInt(), "The file should hold the quantity.");
+        assertFalse(stored.has("name") || stored.has("price"), "Catalog details should not be stored in the cart.");
+    }
+
+    @Test
+    public void testCartLines_ShowCurrentCatalogPrice() {
+        Product product = productRepository.addProduct(new Product(UUID.randomUUID(), "Lamp", 40.0));
+        Cart cart = cartService.addCart(new Cart(UUID.randomUUID()));
+        cartService.addProductToCart(cart.getId(), product);
+        long version = cartService.getCartVersion(cart.getId());
+
+        productRepository.updateProduct(product.getId(), "Desk Lamp", 30.0);
+        Cart updated = cartService.getCartById(cart.getId());
+        assertEquals("Desk Lamp", updated.getProducts().get(0).getName(), "The cart should show the new name.");
+        assertEquals(30.0, updated.getProducts().get(0).getPrice(), "The cart should show the new price.");
+        assertNotEquals(version, cartService.getCartVersion(cart.getId()),
+                "A catalog change should change the cart's version, and so its ETag.");
+    }
+
+    @Test
+    public void testCartLines_LegacyFileIsMigrated(@TempDir Path dataDir) throws Exception {
+        Product listed = productRepository.addProduct(new Product(UUID.randomUUID(), "Listed", 5.0));
+        Product unlisted = new Product(UUID.randomUUID(), "Unlisted", 7.0);
+        UUID cartId = UUID.randomUUID();
+        Path cartsFile = dataDir.resolve("carts.json");
+        // The old layout: a full product per unit.
+        objectMapper.writeValue(cartsFile.toFile(), List.of(Map.of(
+                "id", cartId, "userId", UUID.randomUUID(),
+                "products", List.of(listed, listed, unlisted))));
+
+        CartRepository repository = new CartRepository();
+        ReflectionTestUtils.setField(repository, "cartDataPath", cartsFile.toString());
+        ReflectionTestUtils.setField(repository, "storageMode", "json");
+        ReflectionTestUtils.setField(repository, "dataFormat", "json");
+        ReflectionTestUtils.setField(repository, "fsyncPolicy", "always");
+        ReflectionTestUtils.setField(repository, "lockStripes", 64);
+        ReflectionTestUtils.setField(repository, "catalog", productRepository);
+        ReflectionTestUtils.invokeMethod(repository, "open");
+        try {
+            JsonNode lines = objectMapper.readTree(cartsFile.toFile()).get(0).path("products");
+            assertEquals(2, lines.size(), "The repeated product should be merged into one line.");
+            assertEquals(2, lines.get(0).path("quantity").asInt(), "The merged line should count both units.");
+            assertFalse(lines.get(0).has("name"), "The catalog product's details should be dropped from the file.");
+            assertEquals("Unlisted", lines.get(1).path("name").asText(),
+                    "A product missing from the catalog should keep its details.");
+
+            Cart migrated = repository.getCartById(cartId);
+            assertEquals(3, migrated.getProducts().size(), "No unit should be lost.");
+            assertEquals("Listed", migrated.getProducts().get(0).getName(), "Details should come from the catalog.");
+            assertEquals(7.0, migrated.getProducts().get(2).getPrice(), "The kept price should still be used.");
+        } finally {
+            ReflectionTestUtils.invokeMethod(repository, "close");
+        }
+    }
 }
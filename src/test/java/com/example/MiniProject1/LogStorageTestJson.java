@@ -0,0 +1,171 @@
+package com.example.MiniProject1;
+
+import com.example.model.Product;
+import com.example.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogStorageTestJson {
+
+    @TempDir
+    Path dataDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Path productsFile;
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    public void openRepository() throws Exception {
+        productsFile = dataDir.resolve("products.json");
+        objectMapper.writeValue(productsFile.toFile(), new ArrayList<Product>());
+        productRepository = open();
+    }
+
+    @AfterEach
+    public void closeRepository() {
+        ReflectionTestUtils.invokeMethod(productRepository, "close");
+    }
+
+    private ProductRepository open() {
+        return open(false);
+    }
+
+    private ProductRepository open(boolean groupCommit) {
+        ProductRepository repository = new ProductRepository();
+        ReflectionTestUtils.setField(repository, "groupCommit", groupCommit);
+        ReflectionTestUtils.setField(repository, "groupCommitWindowMs", 20L);
+        ReflectionTestUtils.setField(repository, "groupCommitMaxOps", 64);
+        ReflectionTestUtils.setField(repository, "productDataPath", productsFile.toString());
+        ReflectionTestUtils.setField(repository, "storageMode", "log");
+        ReflectionTestUtils.setField(repository, "fsyncPolicy", "always");
+        ReflectionTestUtils.setField(repository, "compactionMaxRecords", 3L);
+        ReflectionTestUtils.setField(repository, "compactionLogRatio", 1.0);
+        ReflectionTestUtils.setField(repository, "compactionMinLogBytes", Long.MAX_VALUE);
+        ReflectionTestUtils.invokeMethod(repository, "open");
+        return repository;
+    }
+
+    private Path logFile() {
+        return dataDir.resolve("products.json.log");
+    }
+
+    @Test
+    public void testWritesAppendOneRecordEach() throws Exception {
+        Product product = new Product(UUID.randomUUID(), "Logged", 10.0);
+        productRepository.addProduct(product);
+        productRepository.updateProduct(product.getId(), "Renamed", 12.0);
+        productRepository.deleteProductById(UUID.randomUUID()); // matches nothing, so nothing is logged
+        List<String> lines = Files.readAllLines(logFile());
+        assertEquals(2, lines.size(), "Each effective change should append exactly one record.");
+        assertTrue(lines.get(0).contains("\"op\":\"ADD\""), "First record should be the ADD.");
+        assertTrue(lines.get(1).contains("\"op\":\"PUT\""), "Second record should be the PUT.");
+        assertEquals("[]", Files.readString(productsFile), "The snapshot should not be rewritten.");
+    }
+
+    @Test
+    public void testStateIsRebuiltByReplay() {
+        Product kept = new Product(UUID.randomUUID(), "Kept", 5.0);
+        Product removed = new Product(UUID.randomUUID(), "Removed", 6.0);
+        productRepository.addProduct(kept);
+        productRepository.addProduct(removed);
+        productRepository.updateProduct(kept.getId(), "Kept Renamed", 7.0);
+        productRepository.deleteProductById(removed.getId());
+        closeRepository();
+
+        productRepository = open();
+        ArrayList<Product> products = productRepository.getProducts();
+        assertEquals(1, products.size(), "Only the surviving product should be replayed.");
+        assertEquals("Kept Renamed", products.get(0).getName(), "Replay should apply the update.");
+        assertEquals(7.0, products.get(0).getPrice(), "Replay should apply the new price.");
+    }
+
+    @Test
+    public void testTornTailIsDiscarded() throws Exception {
+        Product product = new Product(UUID.randomUUID(), "Complete", 1.0);
+        productRepository.addProduct(product);
+        closeRepository();
+        Files.writeString(logFile(), "{\"op\":\"ADD\",\"id\":\"", java.nio.file.StandardOpenOption.APPEND);
+
+        productRepository = open();
+        assertEquals(1, productRepository.getProducts().size(), "The torn record should be ignored.");
+        productRepository.addProduct(new Product(UUID.randomUUID(), "After Crash", 2.0));
+        assertEquals(2, Files.readAllLines(logFile()).size(), "The torn bytes should be cut off before appending.");
+    }
+
+    @Test
+    public void testOverrideDataCheckpointsAndEmptiesLog() throws Exception {
+        productRepository.addProduct(new Product(UUID.randomUUID(), "One", 1.0));
+        productRepository.overrideData(new ArrayList<>(List.of(new Product(UUID.randomUUID(), "Two", 2.0))));
+        assertEquals(0, Files.size(logFile()), "A full rewrite should leave an empty log.");
+        Product[] snapshot = objectMapper.readValue(productsFile.toFile(), Product[].class);
+        assertEquals(1, snapshot.length, "The snapshot should hold the rewritten data.");
+        assertEquals("Two", snapshot[0].getName(), "The snapshot should hold the rewritten product.");
+    }
+
+    @Test
+    public void testCompactionTriggerAndResult() throws Exception {
+        Product product = new Product(UUID.randomUUID(), "Compacted", 10.0);
+        productRepository.addProduct(product);
+        productRepository.updateProduct(product.getId(), "Compacted", 11.0);
+        assertFalse(productRepository.compact(false), "Two records are below the trigger.");
+
+        productRepository.updateProduct(product.getId(), "Compacted", 12.0);
+        assertTrue(productRepository.compact(false), "Three records should trigger compaction.");
+        assertEquals(0, Files.size(logFile()), "Compaction should empty the log.");
+        assertTrue(productRepository.getCompactionStats().getLastBytesReclaimed() > 0,
+                "Folding three records into one row should reclaim space.");
+        assertEquals(1, productRepository.getCompactionStats().getCompactions(), "One compaction should be recorded.");
+
+        productRepository.addProduct(new Product(UUID.randomUUID(), "After", 1.0));
+        closeRepository();
+        productRepository = open();
+        ArrayList<Product> products = productRepository.getProducts();
+        assertEquals(2, products.size(), "Snapshot plus remaining log should rebuild both products.");
+        assertEquals(12.0, productRepository.findById(product.getId()).getPrice(), "Snapshot should hold the latest price.");
+    }
+
+    @Test
+    public void testGroupCommitKeepsEveryConcurrentWrite() throws Exception {
+        closeRepository();
+        productRepository = open(true);
+        int writers = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            Product product = new Product(UUID.randomUUID(), "Concurrent " + i, i);
+            done.add(pool.submit(() -> {
+                start.await();
+                return productRepository.addProduct(product);
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : done) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        assertEquals(writers, productRepository.getProducts().size(), "Every caller's product should be stored.");
+        assertEquals(writers, Files.readAllLines(logFile()).size(), "Every product should be in the log when its caller returns.");
+
+        closeRepository();
+        productRepository = open();
+        assertEquals(writers, productRepository.getProducts().size(), "Replay should rebuild every product.");
+    }
+}
@@ -0,0 +1,352 @@
+package com.example.MiniProject1;
+
+import com.example.model.Cart;
+import com.example.model.Order;
+import com.example.model.Product;
+import com.example.repository.CartRepository;
+import com.example.repository.OrderRepository;
+import com.example.repository.Page;
+import com.example.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class MainRepositoryTestJson {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${spring.application.productDataPath}")
+    private String productDataPath;
+
+    @Value("${spring.application.cartDataPath}")
+    private String cartDataPath;
+
+    @Value("${spring.application.orderDataPath}")
+    private String orderDataPath;
+
+    @BeforeEach
+    public void clearJsonFiles() throws Exception {
+        objectMapper.writeValue(new File(productDataPath), new ArrayList<Product>());
+        objectMapper.writeValue(new File(cartDataPath), new ArrayList<Cart>());
+        objectMapper.writeValue(new File(orderDataPath), new ArrayList<Order>());
+    }
+
+    // =====================================================
+    // Resident store
+    // =====================================================
+
+    @Test
+    public void testFindById_ServedFromIndex() {
+        Product product = new Product(UUID.randomUUID(), "Indexed", 12.5);
+        productRepository.addProduct(product);
+        Product found = productRepository.findById(product.getId());
+        assertNotNull(found, "Product should be found through the primary index.");
+        assertEquals("Indexed", found.getName(), "Indexed product name should match.");
+        assertNull(productRepository.findById(UUID.randomUUID()), "Unknown id should return null.");
+    }
+
+    @Test
+    public void testWritesGoThroughToDisk() throws Exception {
+        Product product = new Product(UUID.randomUUID(), "On Disk", 3.0);
+        productRepository.addProduct(product);
+        List<Product> onDisk = Arrays.asList(objectMapper.readValue(new File(productDataPath), Product[].class));
+        assertEquals(1, onDisk.size(), "The JSON file should contain the saved product.");
+        assertEquals(product.getId(), onDisk.get(0).getId(), "Saved product id should match.");
+    }
+
+    @Test
+    public void testExternalEditIsPickedUp() throws Exception {
+        productRepository.addProduct(new Product(UUID.randomUUID(), "Before", 1.0));
+        Product external = new Product(UUID.randomUUID(), "External", 2.0);
+        objectMapper.writeValue(new File(productDataPath), List.of(external));
+        assertEquals(1, productRepository.getProducts().size(), "Store should reload after an external write.");
+        assertNotNull(productRepository.findById(external.getId()), "Externally written product should be indexed.");
+    }
+
+    @Test
+    public void testStoredCopyIsIsolatedFromCaller() {
+        Product product = new Product(UUID.randomUUID(), "Original", 10.0);
+        productRepository.addProduct(product);
+        product.setName("Changed by caller");
+        assertEquals("Original", productRepository.findById(product.getId()).getName(),
+                "Mutating the caller's instance must not change the stored row.");
+    }
+
+    @Test
+    public void testUpdateKeepsFilePosition() {
+        Product first = new Product(UUID.randomUUID(), "First", 1.0);
+        Product second = new Product(UUID.randomUUID(), "Second", 2.0);
+        productRepository.addProduct(first);
+        productRepository.addProduct(second);
+        productRepository.updateProduct(first.getId(), "First Updated", 5.0);
+        ArrayList<Product> products = productRepository.getProducts();
+        assertEquals(first.getId(), products.get(0).getId(), "Updated row should stay in place.");
+        assertEquals("First Updated", products.get(0).getName(), "Updated name should be stored.");
+    }
+
+    // =====================================================
+    // Secondary indexes
+    // =====================================================
+
+    @Test
+    public void testCartByUserIdFollowsWrites() {
+        UUID userId = UUID.randomUUID();
+        assertNull(cartRepository.getCartByUserId(userId), "A user without a cart should have none.");
+        Cart cart = cartRepository.addCart(new Cart(userId));
+        assertEquals(cart.getId(), cartRepository.getCartByUserId(userId).getId(), "The new cart should be indexed.");
+        cartRepository.deleteCartById(cart.getId());
+        assertNull(cartRepository.getCartByUserId(userId), "A deleted cart should leave the index.");
+    }
+
+    @Test
+    public void testOrdersByUserIdFollowsWrites() {
+        UUID userId = UUID.randomUUID();
+        Order first = new Order(UUID.randomUUID(), userId, 1.0);
+        Order second = new Order(UUID.randomUUID(), userId, 2.0);
+        orderRepository.addOrder(first);
+        orderRepository.addOrder(new Order(UUID.randomUUID(), UUID.randomUUID(), 3.0));
+        orderRepository.addOrder(second);
+        List<Order> orders = orderRepository.getOrdersByUserId(userId);
+        assertEquals(2, orders.size(), "Only the user's orders should be returned.");
+        assertEquals(first.getId(), orders.get(0).getId(), "Orders should come back in file order.");
+
+        orderRepository.deleteOrderById(first.getId());
+        assertEquals(List.of(second.getId()), orderRepository.getOrdersByUserId(userId).stream().map(Order::getId).toList(),
+                "A deleted order should leave the index.");
+    }
+
+    // =====================================================
+    // Striped locking
+    // =====================================================
+
+    @Test
+    public void testConcurrentAddsToSameCartAreNotLost() throws Exception {
+        Cart cart = cartRepository.addCart(new Cart(UUID.randomUUID()));
+        int writers = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            Product product = new Product(UUID.randomUUID(), "Item " + i, i);
+            done.add(pool.submit(() -> {
+                start.await();
+                cartRepository.addProductToCart(cart.getId(), product);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : done) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        assertEquals(writers, cartRepository.getCartById(cart.getId()).getProducts().size(),
+                "No concurrent add should overwrite another.");
+        assertFalse(cartRepository.getLockStats().isEmpty(), "The cart's stripe should report its acquisitions.");
+    }
+
+    // =====================================================
+    // Streaming lookups
+    // =====================================================
+
+    @Test
+    public void testNonResidentLookupsStreamTheFile(@TempDir Path dataDir) throws Exception {
+        Path cartsFile = dataDir.resolve("carts.json");
+        Cart other = new Cart(UUID.randomUUID(), UUID.randomUUID(),
+                new ArrayList<>(List.of(new Product(UUID.randomUUID(), "Skipped", 1.0))));
+        Cart wanted = new Cart(UUID.randomUUID(), UUID.randomUUID(),
+                new ArrayList<>(List.of(new Product(UUID.randomUUID(), "Wanted", 2.0))));
+        objectMapper.writeValue(cartsFile.toFile(), Arrays.asList(other, null, wanted));
+
+        CartRepository repository = new CartRepository();
+        ReflectionTestUtils.setField(repository, "cartDataPath", cartsFile.toString());
+        ReflectionTestUtils.setField(repository, "storageMode", "json");
+        ReflectionTestUtils.setField(repository, "dataFormat", "json");
+        ReflectionTestUtils.setField(repository, "fsyncPolicy", "always");
+        ReflectionTestUtils.setField(repository, "residentStore", false);
+        ReflectionTestUtils.setField(repository, "lockStripes", 64);
+        ReflectionTestUtils.invokeMethod(repository, "open");
+        try {
+            Cart found = repository.getCartByUserId(wanted.getUserId());
+            assertNotNull(found, "The cart should be found by streaming the file.");
+            assertEquals("Wanted", found.getProducts().get(0).getName(), "The matching cart should be read in full.");
+            assertEquals(other.getId(), repository.getCartById(other.getId()).getId(), "Lookup by id should stream too.");
+            assertNull(repository.getCartByUserId(UUID.randomUUID()), "An unknown user should have no cart.");
+
+            repository.addProductToCart(wanted.getId(), new Product(UUID.randomUUID(), "Added", 3.0));
+            assertEquals(2, repository.getCartById(wanted.getId()).getProducts().size(), "Writes should reach the file.");
+            assertNull(ReflectionTestUtils.getField(repository, "store"), "Nothing should stay resident.");
+        } finally {
+            ReflectionTestUtils.invokeMethod(repository, "close");
+        }
+    }
+
+    @Test
+    public void testStreamedLookupsSurviveConcurrentRewrites(@TempDir Path dataDir) throws Exception {
+        Path cartsFile = dataDir.resolve("carts.json");
+        Cart growing = new Cart(UUID.randomUUID(), UUID.randomUUID(), new ArrayList<>());
+        Cart wanted = new Cart(UUID.randomUUID(), UUID.randomUUID(),
+                new ArrayList<>(List.of(new Product(UUID.randomUUID(), "Wanted", 2.0))));
+        objectMapper.writeValue(cartsFile.toFile(), Arrays.asList(growing, wanted));
+
+        CartRepository repository = new CartRepository();
+        ReflectionTestUtils.setField(repository, "cartDataPath", cartsFile.toString());
+        ReflectionTestUtils.setField(repository, "storageMode", "json");
+        ReflectionTestUtils.setField(repository, "dataFormat", "json");
+        ReflectionTestUtils.setField(repository, "fsyncPolicy", "os");
+        ReflectionTestUtils.setField(repository, "residentStore", false);
+        ReflectionTestUtils.setField(repository, "lockStripes", 64);
+        ReflectionTestUtils.invokeMethod(repository, "open");
+        int readers = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(readers + 1);
+        try {
+            // every write moves the wanted cart further into the file
+            Future<?> writer = pool.submit(() -> {
+                for (int i = 0; i < 300; i++) {
+                    repository.addProductToCart(growing.getId(), new Product(UUID.randomUUID(), "Filler " + i, i));
+                }
+                return null;
+            });
+            List<Future<?>> done = new ArrayList<>();
+            for (int r = 0; r < readers; r++) {
+                done.add(pool.submit(() -> {
+                    while (!writer.isDone()) {
+                        Cart found = repository.getCartByUserId(wanted.getUserId());
+                        assertEquals(wanted.getId(), found.getId(), "A lookup should return the cart it matched.");
+                    }
+                    return null;
+                }));
+            }
+            writer.get(30, TimeUnit.SECONDS);
+            for (Future<?> future : done) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdown();
+            ReflectionTestUtils.invokeMethod(repository, "close");
+        }
+    }
+
+    // =====================================================
+    // Keyset paging
+    // =====================================================
+
+    @Test
+    public void testFindPage_WalksSortIndexInOrder() {
+        double[] prices = {5.0, 1.0, 3.0, 3.0, 9.0, 2.0, 7.0};
+        for (int i = 0; i < prices.length; i++) {
+            productRepository.addProduct(new Product(UUID.randomUUID(), "P" + i, prices[i]));
+        }
+
+        List<Double> ascending = new ArrayList<>();
+        String after = null;
+        int pages = 0;
+        do {
+            Page<Product> page = productRepository.getProductsPage("price", after, 3);
+            page.items().forEach(p -> ascending.add(p.getPrice()));
+            after = page.next();
+            pages++;
+        } while (after != null);
+        assertEquals(List.of(1.0, 2.0, 3.0, 3.0, 5.0, 7.0, 9.0), ascending, "Pages should cover every product by price.");
+        assertEquals(3, pages, "Seven products in pages of three should take three pages.");
+
+        Page<Product> top = productRepository.getProductsPage("-price", null, 2);
+        assertEquals(9.0, top.items().get(0).getPrice(), "A leading '-' should sort descending.");
+        assertEquals(7.0, top.items().get(1).getPrice(), "A leading '-' should sort descending.");
+    }
+
+    @Test
+    public void testFindPage_SortIndexFollowsUpdates() {
+        Product cheap = new Product(UUID.randomUUID(), "Cheap", 1.0);
+        productRepository.addProduct(cheap);
+        productRepository.addProduct(new Product(UUID.randomUUID(), "Middle", 5.0));
+        productRepository.updateProduct(cheap.getId(), "Cheap", 10.0);
+
+        Page<Product> page = productRepository.getProductsPage("price", null, 10);
+        assertEquals("Middle", page.items().get(0).getName(), "A repriced product should move in the sort index.");
+        assertEquals(2, page.items().size(), "The old position should be gone from the sort index.");
+    }
+
+    @Test
+    public void testFindPage_FileOrderSurvivesWritesBetweenPages() {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Order order = new Order(UUID.randomUUID(), UUID.randomUUID(), i);
+            orders.add(order);
+            orderRepository.addOrder(order);
+        }
+        Page<Order> first = orderRepository.getOrdersPage(null, null, 2);
+        assertEquals(orders.get(1).getId(), first.items().get(1).getId(), "File order should be insertion order.");
+
+        orderRepository.deleteOrderById(orders.get(1).getId());
+        Order added = new Order(UUID.randomUUID(), UUID.randomUUID(), 99);
+        orderRepository.addOrder(added);
+
+        Page<Order> second = orderRepository.getOrdersPage(null, first.next(), 2);
+        assertEquals(orders.get(2).getId(), second.items().get(0).getId(), "Deleting the cursor row should not skip rows.");
+        Page<Order> third = orderRepository.getOrdersPage(null, second.next(), 2);
+        assertEquals(List.of(added.getId()), third.items().stream().map(Order::getId).toList(),
+                "A row added meanwhile should show up on a later page.");
+        assertNull(third.next(), "The last page should have no cursor.");
+    }
+
+    @Test
+    public void testFindPage_RejectsUnknownSortAndForeignCursor() {
+        productRepository.addProduct(new Product(UUID.randomUUID(), "A", 1.0));
+        productRepository.addProduct(new Product(UUID.randomUUID(), "B", 2.0));
+        String byPrice = productRepository.getProductsPage("price", null, 1).next();
+
+        ResponseStatusException unknown = assertThrows(ResponseStatusException.class,
+                () -> productRepository.getProductsPage("color", null, 1));
+        assertEquals(HttpStatus.BAD_REQUEST, unknown.getStatusCode(), "An undeclared sort key should be a bad request.");
+        ResponseStatusException foreign = assertThrows(ResponseStatusException.class,
+                () -> productRepository.getProductsPage("name", byPrice, 1));
+        assertEquals(HttpStatus.BAD_REQUEST, foreign.getStatusCode(), "A cursor from another order should be rejected.");
+        assertThrows(ResponseStatusException.class, () -> productRepository.getProductsPage(null, "not-a-cursor", 1),
+                "A malformed cursor should be rejected.");
+    }
+
+    @Test
+    public void testFindPage_RejectsLimitsAboveTheMaximum() {
+        productRepository.addProduct(new Product(UUID.randomUUID(), "A", 1.0));
+
+        assertEquals(1, productRepository.getProductsPage(null, null, Page.MAX_LIMIT).items().size(),
+                "The maximum limit itself should be accepted.");
+        for (int limit : new int[]{Page.MAX_LIMIT + 1, Integer.MAX_VALUE}) {
+            ResponseStatusException tooBig = assertThrows(ResponseStatusException.class,
+                    () -> productRepository.getProductsPage(null, null, limit));
+            assertEquals(HttpStatus.BAD_REQUEST, tooBig.getStatusCode(), "A limit of " + limit + " should be a bad request.");
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.MiniProject1;
+
+import com.example.model.Product;
+import com.example.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedStorageTestJson {
+
+    @TempDir
+    Path dataDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Path productsFile;
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    public void openRepository() throws Exception {
+        productsFile = dataDir.resolve("products.json");
+        objectMapper.writeValue(productsFile.toFile(), new ArrayList<Product>());
+        productRepository = open();
+    }
+
+    @AfterEach
+    public void closeRepository() {
+        ReflectionTestUtils.invokeMethod(productRepository, "close");
+    }
+
+    private ProductRepository open() {
+        ProductRepository repository = new ProductRepository();
+        ReflectionTestUtils.setField(repository, "groupCommit", false);
+        ReflectionTestUtils.setField(repository, "lockStripes", 64);
+        ReflectionTestUtils.setField(repository, "productDataPath", productsFile.toString());
+        ReflectionTestUtils.setField(repository, "productStorageEngine", "mmap");
+        ReflectionTestUtils.setField(repository, "storageMode", "json");
+        ReflectionTestUtils.setField(repository, "fsyncPolicy", "always");
+        ReflectionTestUtils.invokeMethod(repository, "open");
+        return repository;
+    }
+
+    private Path namesFile() {
+        return dataDir.resolve("products.json.names");
+    }
+
+    @Test
+    public void testJsonIsImportedOnFirstStart() throws Exception {
+        closeRepository();
+        Files.delete(dataDir.resolve("products.json.records"));
+        Product existing = new Product(UUID.randomUUID(), "From JSON", 4.5);
+        objectMapper.writeValue(productsFile.toFile(), List.of(existing));
+
+        productRepository = open();
+        assertEquals(1, productRepository.getProducts().size(), "The JSON catalog should be imported.");
+        assertEquals("From JSON", productRepository.findById(existing.getId()).getName(), "Imported name should match.");
+    }
+
+    @Test
+    public void testStateSurvivesReopen() {
+        Product kept = new Product(UUID.randomUUID(), "Kept", 5.0);
+        Product removed = new Product(UUID.randomUUID(), "Removed", 6.0);
+        productRepository.addProduct(kept);
+        productRepository.addProduct(removed);
+        productRepository.updateProduct(kept.getId(), "Kept Renamed", 7.0);
+        productRepository.deleteProductById(removed.getId());
+        closeRepository();
+
+        productRepository = open();
+        ArrayList<Product> products = productRepository.getProducts();
+        assertEquals(1, products.size(), "Deleted slots should not be loaded.");
+        assertEquals("Kept Renamed", products.get(0).getName(), "The renamed product should be loaded.");
+        assertEquals(7.0, products.get(0).getPrice(), "The new price should be loaded.");
+    }
+
+    @Test
+    public void testDiscountUpdatesPricesInPlace() throws Exception {
+        Product first = new Product(UUID.randomUUID(), "First", 100.0);
+        Product second = new Product(UUID.randomUUID(), "Second", 50.0);
+        productRepository.addProduct(first);
+        productRepository.addProduct(second);
+        long namesBefore = Files.size(namesFile());
+        productRepository.applyDiscount(10, new ArrayList<>(List.of(first.getId(), second.getId())));
+        assertEquals(namesBefore, Files.size(namesFile()), "A price change should not touch the string region.");
+        closeRepository();
+
+        productRepository = open();
+        assertEquals(90.0, productRepository.findById(first.getId()).getPrice(), 0.0001, "First price should be discounted.");
+        assertEquals(45.0, productRepository.findById(second.getId()).getPrice(), 0.0001, "Second price should be discounted.");
+    }
+
+    @Test
+    public void testRecordsGrowPastInitialCapacity() {
+        int count = 500;
+        for (int i = 0; i < count; i++) {
+            productRepository.addProduct(new Product(UUID.randomUUID(), "Product " + i, i));
+        }
+        closeRepository();
+
+        productRepository = open();
+        ArrayList<Product> products = productRepository.getProducts();
+        assertEquals(count, products.size(), "Every product should be stored after the files grow.");
+        assertEquals("Product 499", products.get(count - 1).getName(), "Products should keep their insertion order.");
+    }
+
+    @Test
+    public void testRenamesRewriteBeforeTheNameRegionIsFull() throws Exception {
+        Product renamed = new Product(UUID.randomUUID(), "Name 0", 1.0);
+        Product other = new Product(UUID.randomUUID(), "Other", 2.0);
+        productRepository.addProduct(renamed);
+        productRepository.addProduct(other);
+        Object storage = ReflectionTestUtils.getField(productRepository, "storage");
+        ReflectionTestUtils.setField(storage, "nameLimit", 256L);
+        for (int i = 1; i <= 200; i++) {
+            productRepository.updateProduct(renamed.getId(), "Name " + i, 1.0);
+        }
+        assertTrue(Files.size(namesFile()) <= 256, "Replaced names should be dropped before the limit is passed.");
+        closeRepository();
+
+        productRepository = open();
+        assertEquals("Name 200", productRepository.findById(renamed.getId()).getName(), "The last name should be kept.");
+        assertEquals("Other", productRepository.findById(other.getId()).getName(), "Other names should survive the rewrite.");
+    }
+
+    @Test
+    public void testFailedRewriteKeepsTheCatalogReadable() throws Exception {
+        Product kept = new Product(UUID.randomUUID(), "Kept", 1.0);
+        productRepository.addProduct(kept);
+        Object storage = ReflectionTestUtils.getField(productRepository, "storage");
+        ReflectionTestUtils.setField(storage, "nameLimit", 256L);
+        Product tooLong = new Product(UUID.randomUUID(), "x".repeat(300), 2.0);
+        assertThrows(RuntimeException.class, () -> productRepository.addProduct(tooLong),
+                "A name past the limit should fail the rewrite.");
+
+        assertEquals("Kept", productRepository.findById(kept.getId()).getName(), "The catalog should still read from the real files.");
+        assertNull(productRepository.findById(tooLong.getId()), "The failed product should not be stored.");
+        assertFalse(Files.exists(dataDir.resolve("products.json.records.tmp")), "The failed rewrite's tmp files should be gone.");
+
+        Product added = new Product(UUID.randomUUID(), "Added", 3.0);
+        productRepository.addProduct(added);
+        closeRepository();
+        productRepository = open();
+        assertEquals("Kept", productRepository.findById(kept.getId()).getName(), "Earlier products should survive a reopen.");
+        assertEquals("Added", productRepository.findById(added.getId()).getName(), "Later appends should reach the real files.");
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.MiniProject1;
+
+import com.example.metrics.Histogram;
+import com.example.metrics.HistogramSnapshot;
+import com.example.model.Product;
+import com.example.model.User;
+import com.example.repository.ProductRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class MetricsTestJson {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${spring.application.userDataPath}")
+    private String userDataPath;
+
+    @BeforeEach
+    public void clearJsonFiles() throws Exception {
+        objectMapper.writeValue(new File(userDataPath), new ArrayList<User>());
+        mockMvc.perform(delete("/metrics")).andExpect(status().isOk());
+    }
+
+    @Test
+    public void testHistogramPercentilesStayWithinBucketPrecision() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot(1_000);
+        assertEquals(100_000, snapshot.count(), "Every value should be counted.");
+        assertEquals(50_000, snapshot.p50(), 50_000 * 0.016, "p50 should be within 1.6% of the true median.");
+        assertEquals(99_000, snapshot.p99(), 99_000 * 0.016, "p99 should be within 1.6% of the true value.");
+        assertEquals(99_900, snapshot.p999(), 99_900 * 0.016, "p99.9 should be within 1.6% of the true value.");
+        assertEquals(100_000, snapshot.max(), "max should be exact.");
+        assertEquals(50_000.5, snapshot.mean(), 0.001, "mean should be exact.");
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        Histogram histogram = new Histogram();
+        List.of(0L, 1L, 1L, 3L, 127L).forEach(histogram::record);
+        HistogramSnapshot snapshot = histogram.snapshot(1);
+        assertEquals(1, snapshot.p50(), "Values below 128 should have a bucket each.");
+        assertEquals(127, snapshot.p999(), "The largest small value should be reported as is.");
+    }
+
+    @Test
+    public void testEndpointAndRepositoryMetricsAreExposed() throws Exception {
+        User user = new User(UUID.randomUUID(), "Measured");
+        mockMvc.perform(post("/user/").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(user))).andExpect(status().isOk());
+        mockMvc.perform(get("/user/" + user.getId())).andExpect(status().isOk());
+
+        String body = mockMvc.perform(get("/metrics")).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode metrics = objectMapper.readTree(body);
+        JsonNode endpoint = metrics.path("endpoints").path("UserController.getUserById");
+        assertEquals(1, endpoint.path("count").asLong(), "The controller method should have one timed request.");
+        assertTrue(endpoint.path("p99").asDouble() > 0, "The request latency should be recorded.");
+
+        JsonNode users = metrics.path("repositories").path("User");
+        assertEquals(1, users.path("operations").path("save").path("count").asLong(), "The save should be timed.");
+        assertEquals(1, users.path("rowsScanned").path("id").path("p50").asLong(),
+                "An id lookup should touch exactly one row.");
+        JsonNode file = users.path("files").get(0);
+        assertEquals(new File(userDataPath).getName(), file.path("file").asText(), "I/O should be reported per file.");
+        assertTrue(file.path("bytesWritten").asLong() > 0, "The save should count the bytes it wrote.");
+        assertTrue(metrics.has("caches"), "The cache section should be present.");
+    }
+
+    @Test
+    public void testStorageOperationsEmitFlightRecorderEvents(@TempDir Path dataDir) throws Exception {
+        Path productsFile = dataDir.resolve("products.json");
+        objectMapper.writeValue(productsFile.toFile(), List.of(new Product(UUID.randomUUID(), "Existing", 1.0)));
+        Path dump = dataDir.resolve("storage.jfr");
+        try (Recording recording = new Recording()) {
+            for (String event : List.of("FileRead", "Parse", "Serialize", "FileWrite", "Fsync")) {
+                recording.enable("com.example.storage." + event);
+            }
+            recording.start();
+            ProductRepository repository = new ProductRepository();
+            ReflectionTestUtils.setField(repository, "productDataPath", productsFile.toString());
+            ReflectionTestUtils.setField(repository, "storageMode", "json");
+            ReflectionTestUtils.setField(repository, "dataFormat", "json");
+            ReflectionTestUtils.setField(repository, "fsyncPolicy", "always");
+            ReflectionTestUtils.setField(repository, "lockStripes", 64);
+            ReflectionTestUtils.invokeMethod(repository, "open");
+            repository.addProduct(new Product(UUID.randomUUID(), "Recorded", 2.0));
+            ReflectionTestUtils.invokeMethod(repository, "close");
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        Map<String, RecordedEvent> events = new HashMap<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+            events.putIfAbsent(event.getEventType().getName().substring("com.example.storage.".length()), event);
+        }
+        assertEquals(Set.of("FileRead", "Parse", "Serialize", "FileWrite", "Fsync"), events.keySet(),
+                "Loading and saving should emit every storage phase.");
+        assertEquals("Product", events.get("Parse").getString("entity"), "Events should name the entity.");
+        assertEquals(1, events.get("Parse").getLong("records"), "Parsing should count the rows loaded.");
+        assertEquals(2, events.get("Serialize").getLong("records"), "Serializing should count the rows written.");
+        assertEquals(Files.size(productsFile), events.get("FileWrite").getLong("bytes"),
+                "The write should report the bytes of the new file.");
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.MiniProject1;
+
+import com.example.model.Order;
+import com.example.model.User;
+import com.example.repository.ImportResult;
+import com.example.repository.OrderRepository;
+import com.example.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class NdjsonTestJson {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${spring.application.userDataPath}")
+    private String userDataPath;
+
+    @Value("${spring.application.orderDataPath}")
+    private String orderDataPath;
+
+    @BeforeEach
+    public void clearJsonFiles() throws Exception {
+        objectMapper.writeValue(new File(userDataPath), new ArrayList<User>());
+        objectMapper.writeValue(new File(orderDataPath), new ArrayList<Order>());
+    }
+
+    // =====================================================
+    // Export
+    // =====================================================
+
+    @Test
+    public void testExportWritesOneObjectPerLine() throws Exception {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Order order = new Order(UUID.randomUUID(), UUID.randomUUID(), 10.0 * i);
+            orders.add(order);
+            orderRepository.addOrder(order);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(3, orderRepository.exportNdjson(out), "Every order should be exported.");
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(4, lines.length, "Three lines, each ending in a newline.");
+        assertEquals("", lines[3], "The export should end with a newline.");
+        for (int i = 0; i < 3; i++) {
+            Order exported = objectMapper.readValue(lines[i], Order.class);
+            assertEquals(orders.get(i).getId(), exported.getId(), "Orders should be exported in file order.");
+            assertEquals(orders.get(i).getTotalPrice(), exported.getTotalPrice(), "Each line should hold the whole order.");
+        }
+    }
+
+    @Test
+    public void testExportEndpointStreamsNdjson() throws Exception {
+        User user = new User(UUID.randomUUID(), "Exported");
+        userRepository.addUser(user);
+
+        MvcResult started = mockMvc.perform(get("/user/export")).andExpect(request().asyncStarted()).andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(user.getId(), objectMapper.readValue(body.trim(), User.class).getId(),
+                "The endpoint should stream the stored user.");
+    }
+
+    @Test
+    public void testExportRejectsUnknownFormat() throws Exception {
+        mockMvc.perform(get("/order/export").param("format", "csv")).andExpect(status().isBadRequest());
+    }
+
+    // =====================================================
+    // Import
+    // =====================================================
+
+    private String ndjson(List<?> rows) throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (Object row : rows) {
+            body.append(objectMapper.writeValueAsString(row)).append('\n');
+        }
+        return body.toString();
+    }
+
+    @Test
+    public void testImportSkipsKnownIdsAndCommitsOnce() throws Exception {
+        User existing = new User(UUID.randomUUID(), "Existing");
+        userRepository.addUser(existing);
+        User first = new User(UUID.randomUUID(), "First");
+        User second = new User(UUID.randomUUID(), "Second");
+        userRepository.getMetrics().reset();
+
+        String body = mockMvc.perform(post("/user/import").contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson(List.of(existing, first, second, second)) + "\n"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        ImportResult result = objectMapper.readValue(body, ImportResult.class);
+        assertEquals(4, result.records(), "Every non-blank line should be counted.");
+        assertEquals(2, result.imported(), "Only new ids should be stored.");
+        assertEquals(2, result.duplicates(), "Stored and repeated ids should be skipped.");
+        assertTrue(result.recordsPerSecond() > 0, "Throughput should be reported.");
+
+        assertEquals(3, userRepository.getUsers().size(), "The new users should be stored once each.");
+        assertEquals(1, userRepository.getMetrics().snapshot().files().get(0).writes(),
+                "The whole import should be a single write.");
+    }
+
+    @Test
+    public void testImportKeepsStreamOrderAcrossChunks() throws Exception {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            orders.add(new Order(UUID.randomUUID(), UUID.randomUUID(), i));
+        }
+        ImportResult result = orderRepository.importNdjson(
+                new ByteArrayInputStream(ndjson(orders).getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2500, result.imported(), "Every order should be imported.");
+        assertEquals(orders.stream().map(Order::getId).toList(),
+                orderRepository.getOrders().stream().map(Order::getId).toList(),
+                "Chunks parsed in parallel should be stored in stream order.");
+    }
+
+    @Test
+    public void testConcurrentImportsOfTheSameIdsStoreEachOnce() throws Exception {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            orders.add(new Order(UUID.randomUUID(), UUID.randomUUID(), i));
+        }
+        byte[] body = ndjson(orders).getBytes(StandardCharsets.UTF_8);
+        int importers = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(importers);
+        CyclicBarrier start = new CyclicBarrier(importers);
+        List<Future<ImportResult>> results = new ArrayList<>();
+        for (int i = 0; i < importers; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return orderRepository.importNdjson(new ByteArrayInputStream(body));
+            }));
+        }
+        long imported = 0;
+        for (Future<ImportResult> result : results) {
+            imported += result.get(10, TimeUnit.SECONDS).imported();
+        }
+        pool.shutdown();
+
+        assertEquals(3000, imported, "Each id should be imported by exactly one of the imports.");
+        assertEquals(3000, orderRepository.getOrders().size(), "No order should be stored twice.");
+    }
+
+    @Test
+    public void testImportRejectsInvalidLinesWithoutWriting() throws Exception {
+        String body = ndjson(List.of(new User(UUID.randomUUID(), "Valid"))) + "{\"name\":\"No id\"}\n";
+        mockMvc.perform(post("/user/import").contentType(MediaType.APPLICATION_NDJSON).content(body))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/user/import").contentType(MediaType.APPLICATION_NDJSON).content("{not json\n"))
+                .andExpect(status().isBadRequest());
+        assertTrue(userRepository.getUsers().isEmpty(), "A rejected import should store nothing.");
+    }
+}
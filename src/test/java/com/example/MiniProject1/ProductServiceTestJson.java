@@ -1,6 +1,8 @@
 package com.example.MiniProject1;
 
+import com.example.model.PriceChange;
 import com.example.model.Product;
+import com.example.repository.PricingResult;
 import com.example.service.ProductService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,7 +15,9 @@ import org.springframework.web.server.ResponseStatusException;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -207,6 +211,47 @@ public class ProductServiceTestJson {
         assertEquals(135.00, updated.getPrice(), 0.01, "Existing product price should be reduced by 10%");
     }
 
+    // =====================================================
+    // Tests for reprice(PriceChange change)
+    // =====================================================
+
+    @Test
+    void testReprice_byPriceRangeAndNamePrefix() {
+        Product inRange = new Product(UUID.randomUUID(), "Winter Coat", 100.00);
+        Product tooCheap = new Product(UUID.randomUUID(), "Winter Hat", 5.00);
+        Product otherName = new Product(UUID.randomUUID(), "Summer Coat", 100.00);
+        List.of(inRange, tooCheap, otherName).forEach(ProductService::addProduct);
+
+        PricingResult result = ProductService.reprice(new PriceChange(null, 10.0, 500.0, "Winter", 25.0));
+        assertEquals(1, result.affected(), "Only the product matching every criterion should be repriced");
+        assertEquals(75.00, ProductService.getProductById(inRange.getId()).getPrice(), 0.01, "Matching product should be 25% cheaper");
+        assertEquals(5.00, ProductService.getProductById(tooCheap.getId()).getPrice(), 0.01, "Product below the range should keep its price");
+        assertEquals(100.00, ProductService.getProductById(otherName.getId()).getPrice(), 0.01, "Product with another name should keep its price");
+    }
+
+    @Test
+    void testReprice_largeIdSetAcrossCatalog() {
+        Set<UUID> targeted = new HashSet<>();
+        for (int i = 0; i < 400; i++) {
+            Product product = new Product(UUID.randomUUID(), "Bulk " + i, 10.00);
+            ProductService.addProduct(product);
+            if (i % 2 == 0) {
+                targeted.add(product.getId());
+            }
+        }
+        PricingResult result = ProductService.reprice(new PriceChange(targeted, null, null, null, -10.0));
+        assertEquals(200, result.affected(), "Every targeted product should be repriced");
+        long raised = ProductService.getProducts().stream().filter(p -> Math.abs(p.getPrice() - 11.00) < 0.001).count();
+        assertEquals(200, raised, "A negative discount should raise exactly the targeted prices");
+    }
+
+    @Test
+    void testReprice_withoutTarget_throwsBadRequest() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                ProductService.reprice(new PriceChange(null, null, null, null, 10.0)));
+        assertEquals(400, exception.getStatusCode().value(), "A change that targets nothing should be rejected");
+    }
+
     // =====================================================
     // Tests for deleteProductById(UUID productId)
     // =====================================================
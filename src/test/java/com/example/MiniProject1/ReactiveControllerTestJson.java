@@ -0,0 +1,133 @@
+package com.example.MiniProject1;
+
+import com.example.model.Cart;
+import com.example.model.Order;
+import com.example.model.Product;
+import com.example.model.User;
+import com.example.service.CartService;
+import com.example.service.OrderService;
+import com.example.service.ProductService;
+import com.example.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ReactiveControllerTestJson {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Value("${spring.application.cartDataPath}")
+    private String cartDataPath;
+
+    @Value("${spring.application.orderDataPath}")
+    private String orderDataPath;
+
+    @Value("${spring.application.productDataPath}")
+    private String productDataPath;
+
+    @Value("${spring.application.userDataPath}")
+    private String userDataPath;
+
+    @BeforeEach
+    public void clearJsonFiles() throws Exception {
+        objectMapper.writeValue(new File(orderDataPath), new ArrayList<Order>());
+        objectMapper.writeValue(new File(productDataPath), new ArrayList<Product>());
+        objectMapper.writeValue(new File(userDataPath), new ArrayList<User>());
+        objectMapper.writeValue(new File(cartDataPath), new ArrayList<Cart>());
+    }
+
+    private MvcResult dispatch(MvcResult started) throws Exception {
+        return mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+    }
+
+    @Test
+    public void testOrdersStreamAsNdjson() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            orderService.addOrder(new Order(UUID.randomUUID(), UUID.randomUUID(), i));
+        }
+        MvcResult started = mockMvc.perform(get("/reactive/order/").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = dispatch(started).getResponse().getContentAsString();
+        List<String> lines = body.lines().filter(line -> !line.isBlank()).toList();
+        assertEquals(3, lines.size(), "Each order should be streamed on its own line.");
+        assertEquals(0.0, objectMapper.readValue(lines.get(0), Order.class).getTotalPrice(), "Orders should stream in file order.");
+    }
+
+    @Test
+    public void testProductsListAsJsonArray() throws Exception {
+        ProductService.addProduct(new Product(UUID.randomUUID(), "Reactive", 4.0));
+        MvcResult started = mockMvc.perform(get("/reactive/product/").accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        Product[] products = objectMapper.readValue(dispatch(started).getResponse().getContentAsString(), Product[].class);
+        assertEquals(1, products.length, "A plain JSON request should get the whole array.");
+    }
+
+    @Test
+    public void testCheckoutRunsThroughTheServices() throws Exception {
+        UUID userId = UUID.randomUUID();
+        userService.addUser(new User(userId, "Reactive User", new ArrayList<>()));
+        MvcResult started = mockMvc.perform(post("/reactive/user/{userId}/checkout", userId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals("Order added successfully", dispatch(started).getResponse().getContentAsString(),
+                "Checkout should report success.");
+        assertEquals(1, userService.getOrdersByUserId(userId).size(), "Checkout should create one order.");
+    }
+
+    @Test
+    public void testMissingOrderCompletesEmpty() throws Exception {
+        MvcResult started = mockMvc.perform(get("/reactive/order/{orderId}", UUID.randomUUID()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals("", dispatch(started).getResponse().getContentAsString(), "An unknown order should have no body.");
+    }
+
+    @Test
+    public void testCartsCarryCatalogDetails() throws Exception {
+        Product book = ProductService.addProduct(new Product(UUID.randomUUID(), "Book", 12.5));
+        Cart cart = cartService.addCart(new Cart(UUID.randomUUID()));
+        cartService.addProductToCart(cart.getId(), book);
+
+        MvcResult started = mockMvc.perform(get("/reactive/cart/").accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        Cart[] carts = objectMapper.readValue(dispatch(started).getResponse().getContentAsString(), Cart[].class);
+        assertEquals(1, carts.length, "The cart should be listed.");
+        Product listed = carts[0].getProducts().get(0);
+        assertEquals("Book", listed.getName(), "Reactive carts should show the catalog name, like /cart/.");
+        assertEquals(12.5, listed.getPrice(), "Reactive carts should show the catalog price, like /cart/.");
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.MiniProject1;
+
+import com.example.model.Cart;
+import com.example.model.Product;
+import com.example.model.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ResponseCacheTestJson {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${spring.application.userDataPath}")
+    private String userDataPath;
+
+    @Value("${spring.application.cartDataPath}")
+    private String cartDataPath;
+
+    @BeforeEach
+    public void clearJsonFiles() throws Exception {
+        objectMapper.writeValue(new File(userDataPath), new ArrayList<User>());
+        objectMapper.writeValue(new File(cartDataPath), new ArrayList<Cart>());
+        mockMvc.perform(delete("/metrics")).andExpect(status().isOk());
+    }
+
+    private MockHttpServletResponse getUsers() throws Exception {
+        return mockMvc.perform(get("/user/")).andExpect(status().isOk()).andReturn().getResponse();
+    }
+
+    private List<User> users(MockHttpServletResponse response) throws Exception {
+        return objectMapper.readValue(response.getContentAsByteArray(), new TypeReference<List<User>>() {});
+    }
+
+    private void addUser(User user) throws Exception {
+        mockMvc.perform(post("/user/").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(user))).andExpect(status().isOk());
+    }
+
+    @Test
+    public void testRepeatedListingIsServedFromCache() throws Exception {
+        addUser(new User(UUID.randomUUID(), "Cached"));
+        MockHttpServletResponse first = getUsers();
+        MockHttpServletResponse second = getUsers();
+
+        assertNotNull(first.getHeader(HttpHeaders.ETAG), "The listing should carry an ETag.");
+        assertEquals(first.getHeader(HttpHeaders.ETAG), second.getHeader(HttpHeaders.ETAG),
+                "An unchanged listing should keep its ETag.");
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, second.getContentType(), "Cached bytes should be served as JSON.");
+        assertEquals("Cached", users(second).get(0).getName(), "The cached body should hold the stored users.");
+
+        JsonNode cache = objectMapper.readTree(mockMvc.perform(get("/metrics")).andReturn().getResponse()
+                .getContentAsString()).path("caches").path("users");
+        assertEquals(1, cache.path("misses").asLong(), "Only the first listing should serialize the users.");
+        assertEquals(1, cache.path("hits").asLong(), "The second listing should be a cache hit.");
+    }
+
+    @Test
+    public void testWriteInvalidatesCachedListing() throws Exception {
+        addUser(new User(UUID.randomUUID(), "First"));
+        String before = getUsers().getHeader(HttpHeaders.ETAG);
+
+        addUser(new User(UUID.randomUUID(), "Second"));
+        MockHttpServletResponse after = getUsers();
+        assertNotEquals(before, after.getHeader(HttpHeaders.ETAG), "A write should change the ETag.");
+        assertEquals(2, users(after).size(), "The listing after a write should include the new user.");
+    }
+
+    @Test
+    public void testFileChangedOnDiskInvalidatesCachedListing() throws Exception {
+        getUsers();
+        objectMapper.writeValue(new File(userDataPath), List.of(new User(UUID.randomUUID(), "Edited")));
+        List<User> listed = users(getUsers());
+        assertEquals(1, listed.size(), "A data file edited outside the application should be picked up.");
+        assertEquals("Edited", listed.get(0).getName(), "The listing should show the edited file.");
+    }
+
+    @Test
+    public void testGzipIsServedWhenAccepted() throws Exception {
+        addUser(new User(UUID.randomUUID(), "Zipped"));
+        byte[] plain = getUsers().getContentAsByteArray();
+        MockHttpServletResponse zipped = mockMvc.perform(get("/user/").header(HttpHeaders.ACCEPT_ENCODING, "gzip, br"))
+                .andExpect(status().isOk()).andReturn().getResponse();
+
+        assertEquals("gzip", zipped.getHeader(HttpHeaders.CONTENT_ENCODING), "A gzip-capable client should get gzip.");
+        assertTrue(zipped.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING),
+                "Caches in between should key on Accept-Encoding.");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(zipped.getContentAsByteArray()))) {
+            assertArrayEquals(plain, in.readAllBytes(), "The gzipped body should inflate to the plain JSON.");
+        }
+    }
+
+    @Test
+    public void testUnchangedListingAnswersNotModified() throws Exception {
+        addUser(new User(UUID.randomUUID(), "Polled"));
+        String etag = getUsers().getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletResponse unchanged = mockMvc.perform(get("/user/").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified()).andReturn().getResponse();
+        assertEquals(0, unchanged.getContentLength(), "A 304 should have no body.");
+        assertEquals(etag, unchanged.getHeader(HttpHeaders.ETAG), "A 304 should repeat the ETag.");
+
+        addUser(new User(UUID.randomUUID(), "Newcomer"));
+        mockMvc.perform(get("/user/").header(HttpHeaders.IF_NONE_MATCH, etag)).andExpect(status().isOk());
+    }
+
+    @Test
+    public void testCartVersionOnlyMovesWithItsOwnChanges() throws Exception {
+        Cart polled = new Cart(UUID.randomUUID(), UUID.randomUUID(), new ArrayList<>());
+        Cart other = new Cart(UUID.randomUUID(), UUID.randomUUID(), new ArrayList<>());
+        for (Cart cart : List.of(polled, other)) {
+            mockMvc.perform(post("/cart/").contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(cart))).andExpect(status().isOk());
+        }
+        String etag = mockMvc.perform(get("/cart/" + polled.getId())).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag, "A cart should carry an ETag.");
+
+        Product product = new Product(UUID.randomUUID(), "Polled Product", 3.0);
+        mockMvc.perform(put("/cart/addProduct/" + other.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(product))).andExpect(status().isOk());
+        mockMvc.perform(get("/cart/" + polled.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put("/cart/addProduct/" + polled.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(product))).andExpect(status().isOk());
+        String body = mockMvc.perform(get("/cart/" + polled.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        assertEquals(1, objectMapper.readValue(body, Cart.class).getProducts().size(),
+                "A changed cart should be sent again.");
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.MiniProject1;
+
+import com.example.model.Order;
+import com.example.model.User;
+import com.example.repository.OrderRepository;
+import com.example.repository.TransactionManager;
+import com.example.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionTestJson {
+
+    @TempDir
+    Path dataDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Path usersFile;
+    private Path ordersFile;
+    private UserRepository userRepository;
+    private OrderRepository orderRepository;
+    private TransactionManager transactionManager;
+
+    @BeforeEach
+    public void open() throws Exception {
+        usersFile = dataDir.resolve("users.json");
+        ordersFile = dataDir.resolve("orders.json");
+        objectMapper.writeValue(usersFile.toFile(), new ArrayList<User>());
+        objectMapper.writeValue(ordersFile.toFile(), new ArrayList<Order>());
+        openAll();
+    }
+
+    @AfterEach
+    public void close() {
+        ReflectionTestUtils.invokeMethod(userRepository, "close");
+        ReflectionTestUtils.invokeMethod(orderRepository, "close");
+    }
+
+    private void openAll() {
+        userRepository = new UserRepository();
+        ReflectionTestUtils.setField(userRepository, "userDataPath", usersFile.toString());
+        orderRepository = new OrderRepository();
+        ReflectionTestUtils.setField(orderRepository, "orderDataPath", ordersFile.toString());
+        for (Object repository : List.of(userRepository, orderRepository)) {
+            ReflectionTestUtils.setField(repository, "storageMode", "json");
+            ReflectionTestUtils.setField(repository, "dataFormat", "json");
+            ReflectionTestUtils.setField(repository, "fsyncPolicy", "always");
+            ReflectionTestUtils.setField(repository, "groupCommit", false);
+            ReflectionTestUtils.setField(repository, "lockStripes", 64);
+            ReflectionTestUtils.invokeMethod(repository, "open");
+        }
+        transactionManager = new TransactionManager(List.of(userRepository, orderRepository));
+        ReflectionTestUtils.setField(transactionManager, "journalPath", journal().toString());
+        ReflectionTestUtils.setField(transactionManager, "fsyncPolicy", "always");
+        ReflectionTestUtils.invokeMethod(transactionManager, "recoverPending");
+    }
+
+    private Path journal() {
+        return dataDir.resolve("journal.json");
+    }
+
+    @Test
+    public void testCommitWritesEveryRepositoryAndClearsJournal() throws Exception {
+        User user = userRepository.addUser(new User(UUID.randomUUID(), "Buyer"));
+        Order order = new Order(UUID.randomUUID(), user.getId(), 25.0);
+        transactionManager.begin()
+                .modify(userRepository, user.getId(), u -> u.getOrders().add(order))
+                .save(orderRepository, order)
+                .commit();
+
+        assertFalse(Files.exists(journal()), "The journal should be gone once the transaction is committed.");
+        User[] users = objectMapper.readValue(usersFile.toFile(), User[].class);
+        Order[] orders = objectMapper.readValue(ordersFile.toFile(), Order[].class);
+        assertEquals(1, users[0].getOrders().size(), "users.json should link the order.");
+        assertEquals(order.getId(), orders[0].getId(), "orders.json should hold the order.");
+    }
+
+    @Test
+    public void testModifyOfMissingRowIsSkipped() {
+        Order order = new Order(UUID.randomUUID(), UUID.randomUUID(), 5.0);
+        transactionManager.begin()
+                .modify(userRepository, UUID.randomUUID(), u -> u.getOrders().add(order))
+                .save(orderRepository, order)
+                .commit();
+        assertTrue(userRepository.getUsers().isEmpty(), "No user should be created by a skipped change.");
+        assertNotNull(orderRepository.getOrderById(order.getId()), "The other changes should still commit.");
+    }
+
+    @Test
+    public void testJournalIsReplayedOnStartup() throws Exception {
+        User user = userRepository.addUser(new User(UUID.randomUUID(), "Crashed"));
+        close();
+        // A commit that wrote its journal and then died before touching the data files.
+        Order order = new Order(UUID.randomUUID(), user.getId(), 40.0);
+        User linked = new User(user.getId(), "Crashed", new ArrayList<>(List.of(order)));
+        objectMapper.writeValue(journal().toFile(), Map.of("changes", List.of(
+                Map.of("entity", "User", "op", "PUT", "id", user.getId().toString(), "data", linked),
+                Map.of("entity", "Order", "op", "ADD", "id", order.getId().toString(), "data", order))));
+
+        openAll();
+        assertFalse(Files.exists(journal()), "The journal should be deleted after recovery.");
+        assertEquals(1, userRepository.getUserById(user.getId()).getOrders().size(), "Recovery should link the order.");
+        assertEquals(1, orderRepository.getOrders().size(), "Recovery should store the order exactly once.");
+
+        close();
+        objectMapper.writeValue(journal().toFile(), Map.of("changes", List.of(
+                Map.of("entity", "Order", "op", "ADD", "id", order.getId().toString(), "data", order))));
+        openAll();
+        assertEquals(1, orderRepository.getOrders().size(), "Replaying a change that already reached the file should not duplicate it.");
+    }
+}
@@ -1,20 +1,34 @@
 package com.example.MiniProject1;
 
+import com.example.model.Cart;
 import com.example.model.Order;
+import com.example.model.Product;
 import com.example.model.User;
+import com.example.repository.CartRepository;
+import com.example.repository.OrderRepository;
+import com.example.repository.UserRepository;
 import com.example.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -24,6 +38,12 @@ public class UserServiceTestJson {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -194,8 +214,96 @@ public class UserServiceTestJson {
         assertTrue(orders.isEmpty(), "No order should be added for a non-existent user");
     }
 
+    @Test
+    public void testAddOrderToUser_PricesAndEmptiesCart() {
+        UUID userId = UUID.randomUUID();
+        userService.addUser(new User(userId, "Checkout User", new ArrayList<>()));
+        Cart cart = cartRepository.addCart(new Cart(UUID.randomUUID(), userId, new ArrayList<>(List.of(
+                new Product(UUID.randomUUID(), "Book", 12.5),
+                new Product(UUID.randomUUID(), "Pen", 2.5)))));
+        userService.addOrderToUser(userId);
+        Order order = userService.getOrdersByUserId(userId).get(0);
+        assertEquals(15.0, order.getTotalPrice(), 0.0001, "Order total should be the sum of the cart's prices");
+        assertEquals(2, order.getProducts().size(), "Order should contain the cart's products");
+        assertTrue(cartRepository.getCartById(cart.getId()).getProducts().isEmpty(), "Cart should be empty after checkout");
+    }
+
+    @Test
+    public void testAddOrderToUser_ConcurrentCheckoutsAllCommit() throws Exception {
+        int buyers = 16;
+        List<UUID> userIds = new ArrayList<>();
+        for (int i = 0; i < buyers; i++) {
+            UUID userId = UUID.randomUUID();
+            userService.addUser(new User(userId, "Buyer " + i, new ArrayList<>()));
+            cartRepository.addCart(new Cart(UUID.randomUUID(), userId,
+                    new ArrayList<>(List.of(new Product(UUID.randomUUID(), "Item", i)))));
+            userIds.add(userId);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(buyers);
+        List<Future<?>> done = new ArrayList<>();
+        for (UUID userId : userIds) {
+            done.add(pool.submit(() -> userService.addOrderToUser(userId)));
+        }
+        for (Future<?> future : done) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        for (int i = 0; i < buyers; i++) {
+            List<Order> orders = userService.getOrdersByUserId(userIds.get(i));
+            assertEquals(1, orders.size(), "Every buyer should get exactly one order");
+            assertEquals(i, orders.get(0).getTotalPrice(), 0.0001, "Every order should carry its own cart's total");
+        }
+    }
+
+    @Test
+    public void testAddOrderToUser_ConcurrentCheckoutsOfOneCartChargeOnce() throws Exception {
+        int attempts = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(attempts);
+        try {
+            for (int round = 0; round < 20; round++) {
+                UUID userId = UUID.randomUUID();
+                userService.addUser(new User(userId, "Double Clicker " + round, new ArrayList<>()));
+                Cart cart = cartRepository.addCart(new Cart(UUID.randomUUID(), userId, new ArrayList<>(List.of(
+                        new Product(UUID.randomUUID(), "Book", 12.5),
+                        new Product(UUID.randomUUID(), "Pen", 2.5)))));
+                CyclicBarrier start = new CyclicBarrier(attempts);
+                List<Future<?>> done = new ArrayList<>();
+                for (int i = 0; i < attempts; i++) {
+                    done.add(pool.submit(() -> {
+                        start.await();
+                        userService.addOrderToUser(userId);
+                        return null;
+                    }));
+                }
+                for (Future<?> future : done) {
+                    future.get(10, TimeUnit.SECONDS);
+                }
+                List<Order> charged = userService.getOrdersByUserId(userId);
+                assertEquals(1, charged.size(), "The cart should be ordered exactly once, with no empty orders");
+                assertEquals(15.0, charged.get(0).getTotalPrice(), 0.0001, "The one order should carry the cart's total");
+                assertTrue(cartRepository.getCartById(cart.getId()).getProducts().isEmpty(),
+                        "Cart should be empty after checkout");
+                long userOrders = orderRepository.getOrders().stream()
+                        .filter(order -> userId.equals(order.getUserId()))
+                        .count();
+                assertEquals(1, userOrders, "orders.json should hold exactly one order for the user");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     // --- Tests for emptyCart(UUID userId)
 
+    @Test
+    public void testEmptyCart_RemovesCartProducts() {
+        UUID userId = UUID.randomUUID();
+        Cart cart = cartRepository.addCart(new Cart(UUID.randomUUID(), userId,
+                new ArrayList<>(List.of(new Product(UUID.randomUUID(), "Lamp", 30.0)))));
+        userService.emptyCart(userId);
+        assertTrue(cartRepository.getCartById(cart.getId()).getProducts().isEmpty(), "Cart should be empty");
+    }
+
     @Test
     public void testEmptyCart_DoesNotThrowException() {
         UUID userId = UUID.randomUUID();
@@ -239,6 +347,17 @@ public class UserServiceTestJson {
         assertTrue(ordersAfter.isEmpty(), "Orders list should be empty after removal");
     }
 
+    @Test
+    public void testRemoveOrderFromUser_KeepsTheOrderRecord() {
+        UUID userId = UUID.randomUUID();
+        userService.addUser(new User(userId, "User14b", new ArrayList<>()));
+        userService.addOrderToUser(userId);
+        UUID orderId = userService.getOrdersByUserId(userId).get(0).getId();
+        userService.removeOrderFromUser(userId, orderId);
+        assertTrue(userService.getUserById(userId).getOrderIds().isEmpty(), "The user should no longer reference the order");
+        assertNotNull(orderRepository.findById(orderId), "Removing an order from a user should not delete the order");
+    }
+
     @Test
     public void testRemoveOrderFromUser_NonExistentOrder_DoesNothing() {
         UUID userId = UUID.randomUUID();
@@ -283,4 +402,61 @@ public class UserServiceTestJson {
         boolean exists = userService.getUsers().stream().anyMatch(u -> u.getId().equals(userId));
         assertFalse(exists, "Deleted user should not appear in the users list");
     }
+
+    // --- Tests for order references (order ids stored on the user)
+
+    @Test
+    public void testAddOrderToUser_StoresOnlyTheOrderId() throws Exception {
+        UUID userId = UUID.randomUUID();
+        userService.addUser(new User(userId, "Referencing User", new ArrayList<>()));
+        cartRepository.addCart(new Cart(UUID.randomUUID(), userId,
+                new ArrayList<>(List.of(new Product(UUID.randomUUID(), "Kettle", 20.0)))));
+        userService.addOrderToUser(userId);
+        Order order = userService.getOrdersByUserId(userId).get(0);
+
+        JsonNode stored = objectMapper.readTree(new File(userDataPath)).get(0);
+        assertEquals(order.getId().toString(), stored.path("orderIds").get(0).asText(),
+                "The user record should reference the order by id");
+        assertTrue(stored.path("orders").isEmpty(), "The user record should not embed the order");
+        assertTrue(userService.getUserById(userId).getOrders().isEmpty(),
+                "Without expand the user should carry only order ids");
+
+        User expanded = userService.getUserWithOrders(userId);
+        assertEquals(1, expanded.getOrders().size(), "Expanding should fill in the order");
+        assertEquals("Kettle", expanded.getOrders().get(0).getProducts().get(0).getName(),
+                "The expanded order should be the one stored in orders.json");
+    }
+
+    @Test
+    public void testEmbeddedOrdersAreReplacedByIdsOnStartup(@TempDir Path dataDir) throws Exception {
+        UUID userId = UUID.randomUUID();
+        Order stored = new Order(UUID.randomUUID(), userId, 3.0, new ArrayList<>());
+        Order orphan = new Order(UUID.randomUUID(), userId, 4.0, new ArrayList<>());
+        orderRepository.addOrder(stored);
+        Path usersFile = dataDir.resolve("users.json");
+        objectMapper.writeValue(usersFile.toFile(), List.of(new User(userId, "Legacy", List.of(stored, orphan))));
+
+        UserRepository repository = new UserRepository();
+        ReflectionTestUtils.setField(repository, "userDataPath", usersFile.toString());
+        ReflectionTestUtils.setField(repository, "storageMode", "json");
+        ReflectionTestUtils.setField(repository, "dataFormat", "json");
+        ReflectionTestUtils.setField(repository, "fsyncPolicy", "always");
+        ReflectionTestUtils.setField(repository, "lockStripes", 64);
+        ReflectionTestUtils.setField(repository, "orderStore", orderRepository);
+        ReflectionTestUtils.invokeMethod(repository, "open");
+        try {
+            JsonNode user = objectMapper.readTree(usersFile.toFile()).get(0);
+            assertEquals(stored.getId().toString(), user.path("orderIds").get(0).asText(),
+                    "An order found in orders.json should be replaced by its id");
+            assertEquals(1, user.path("orders").size(), "Only the order missing from orders.json should stay embedded");
+            assertEquals(orphan.getId().toString(), user.path("orders").get(0).path("id").asText(),
+                    "The embedded order should be the missing one");
+
+            List<Order> orders = repository.getOrdersByUserId(userId);
+            assertEquals(List.of(stored.getId(), orphan.getId()), orders.stream().map(Order::getId).toList(),
+                    "Both orders should still be returned, referenced ones first");
+        } finally {
+            ReflectionTestUtils.invokeMethod(repository, "close");
+        }
+    }
 }
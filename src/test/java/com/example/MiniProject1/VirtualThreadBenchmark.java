@@ -0,0 +1,173 @@
+package com.example.MiniProject1;
+
+import com.example.model.Product;
+import com.example.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load benchmark comparing Tomcat on platform threads with Tomcat on virtual threads.
+ * Not a unit test: run it by hand, e.g.
+ * <pre>
+ *   mvn test-compile
+ *   java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *        com.example.MiniProject1.VirtualThreadBenchmark 1000 5000 10000
+ * </pre>
+ * For every thread mode the application is started on a random port over fresh data files in
+ * a temp directory. Then each client count is run: that many concurrent clients each send
+ * {@code REQUESTS_PER_CLIENT} pairs of {@code GET /product/} and
+ * {@code PUT /user/addProductToCart}. Throughput and latency percentiles are printed per run.
+ * 10k clients need a matching open-file limit ({@code ulimit -n}).
+ */
+public final class VirtualThreadBenchmark {
+
+    private static final int PRODUCTS = 100;
+    private static final int USERS = 1000;
+    private static final int REQUESTS_PER_CLIENT = 5;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private VirtualThreadBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // DevTools would restart main() in its own class loader; it must be off before Spring starts.
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        int[] clientCounts = args.length == 0
+                ? new int[] {1000, 2500, 5000, 10000}
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        System.out.printf("%-8s %8s %10s %10s %10s %10s %8s%n",
+                "threads", "clients", "requests", "req/s", "p50 ms", "p99 ms", "errors");
+        for (boolean virtual : new boolean[] {false, true}) {
+            Path dataDir = Files.createTempDirectory("vt-benchmark");
+            Data data = seed(dataDir);
+            try (ConfigurableApplicationContext app = start(dataDir, virtual)) {
+                String baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+                run(baseUrl, data, 200, virtual, false); // warm-up
+                for (int clients : clientCounts) {
+                    run(baseUrl, data, clients, virtual, true);
+                }
+            }
+        }
+    }
+
+    private record Data(List<UUID> productIds, List<UUID> userIds) {
+    }
+
+    private static Data seed(Path dataDir) throws Exception {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(new Product(UUID.randomUUID(), "Product " + i, 1 + i));
+        }
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User(UUID.randomUUID(), "User " + i));
+        }
+        objectMapper.writeValue(dataDir.resolve("products.json").toFile(), products);
+        objectMapper.writeValue(dataDir.resolve("users.json").toFile(), users);
+        objectMapper.writeValue(dataDir.resolve("carts.json").toFile(), List.of());
+        objectMapper.writeValue(dataDir.resolve("orders.json").toFile(), List.of());
+        return new Data(products.stream().map(Product::getId).toList(), users.stream().map(User::getId).toList());
+    }
+
+    private static ConfigurableApplicationContext start(Path dataDir, boolean virtual) {
+        // Passed as command-line arguments so they win over application.properties.
+        return new SpringApplicationBuilder(MiniProject1Application.class).run(
+                "--server.port=0",
+                "--server.tomcat.max-connections=20000",
+                "--server.tomcat.accept-count=10000",
+                "--logging.level.root=WARN",
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--spring.application.productDataPath=" + dataDir.resolve("products.json"),
+                "--spring.application.userDataPath=" + dataDir.resolve("users.json"),
+                "--spring.application.cartDataPath=" + dataDir.resolve("carts.json"),
+                "--spring.application.orderDataPath=" + dataDir.resolve("orders.json"),
+                "--spring.application.journalPath=" + dataDir.resolve("journal.json"));
+    }
+
+    private static void run(String baseUrl, Data data, int clients, boolean virtual, boolean report)
+            throws InterruptedException {
+        int requests = clients * REQUESTS_PER_CLIENT * 2;
+        long[] latencies = new long[requests];
+        AtomicLong next = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(clients);
+        // Clients always run on virtual threads so the load generator is never the bottleneck.
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder().executor(clientThreads).build()) {
+            for (int c = 0; c < clients; c++) {
+                UUID userId = data.userIds().get(c % data.userIds().size());
+                clientThreads.submit(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                            UUID productId = data.productIds().get((int) (next.get() % data.productIds().size()));
+                            send(http, HttpRequest.newBuilder(URI.create(baseUrl + "/product/")).GET().build(),
+                                    latencies, next, errors);
+                            send(http, HttpRequest.newBuilder(URI.create(baseUrl + "/user/addProductToCart?userId="
+                                            + userId + "&productId=" + productId))
+                                    .PUT(HttpRequest.BodyPublishers.noBody()).build(), latencies, next, errors);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            long began = System.nanoTime();
+            start.countDown();
+            done.await();
+            long elapsed = System.nanoTime() - began;
+            if (report) {
+                int completed = (int) Math.min(next.get(), requests);
+                long[] sorted = Arrays.copyOf(latencies, completed);
+                Arrays.sort(sorted);
+                System.out.printf("%-8s %8d %10d %10.0f %10.2f %10.2f %8d%n",
+                        virtual ? "virtual" : "platform", clients, completed,
+                        completed / (elapsed / 1e9), percentile(sorted, 0.50), percentile(sorted, 0.99), errors.get());
+            }
+        }
+    }
+
+    private static void send(HttpClient http, HttpRequest request, long[] latencies, AtomicLong next,
+                             AtomicLong errors) throws InterruptedException {
+        long began = System.nanoTime();
+        try {
+            HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                errors.incrementAndGet();
+            }
+        } catch (java.io.IOException e) {
+            errors.incrementAndGet();
+        }
+        long slot = next.getAndIncrement();
+        if (slot < latencies.length) {
+            latencies[(int) slot] = System.nanoTime() - began;
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))] / 1e6;
+    }
+}